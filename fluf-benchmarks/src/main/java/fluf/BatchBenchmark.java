@@ -0,0 +1,89 @@
+package fluf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creating a batch of short lived instances with {@link Provider#getMany(int)} compared
+ * to the same number of {@link Provider#get()} calls. The measured provider depends on the
+ * injector, a cached provider, an injected provider and a non-cached provider.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+	static class Engine {
+	}
+
+	static class Color {
+	}
+
+	static class Car {
+		final Engine engine;
+		final Color color;
+
+		Car(Engine engine, Color color) {
+			this.engine = engine;
+			this.color = color;
+		}
+	}
+
+	static class BatchModule extends Module {
+
+		@Bind(cache = true)
+		Engine engine() {
+			return new Engine();
+		}
+
+		@Bind
+		Color color() {
+			return new Color();
+		}
+
+		@Bind
+		Car car(Injector injector, Engine engine, Provider<Color> colors, Color color) {
+			return new Car(engine, color);
+		}
+	}
+
+	@Param({ "10", "100", "1000" })
+	int count;
+
+	private Provider<Car> cars;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		cars = Fluf.createInjector(new BatchModule()).find(Car.class, null, null);
+	}
+
+	@Benchmark
+	public List<Car> individualGets() {
+		final List<Car> instances = new ArrayList<Car>(count);
+		for (int i = 0; i < count; i++) {
+			instances.add(cars.get());
+		}
+		return instances;
+	}
+
+	@Benchmark
+	public List<Car> getMany() {
+		return cars.getMany(count);
+	}
+}
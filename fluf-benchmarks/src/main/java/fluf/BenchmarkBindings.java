@@ -0,0 +1,142 @@
+package fluf;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds modules with a configurable number of bindings for the benchmarks. Besides the bindings
+ * that are measured, a module binds filler providers named {@code filler<n>}, half of them of type
+ * {@code String} and half of type {@code List<String>}, so lookups are measured against
+ * registries of different sizes.
+ */
+final class BenchmarkBindings {
+
+	/** Measured instance type. */
+	static class Service {
+	}
+
+	/** Depends on all {@code String} bindings. */
+	static class Summary {
+		final int size;
+
+		Summary(int size) {
+			this.size = size;
+		}
+	}
+
+	/** Depends on a {@link Provider} of {@link Service}. */
+	static class Holder {
+		final Provider<?> provider;
+
+		Holder(Provider<?> provider) {
+			this.provider = provider;
+		}
+	}
+
+	/** Proxy interface, the method is bound to the {@code service} provider. */
+	interface Api {
+		Service service();
+	}
+
+	static final Type LIST_OF_STRINGS = Types.parameterized(List.class, String.class);
+
+	static final TypeLiteral<List<String>> LIST_OF_STRINGS_LITERAL = new TypeLiteral<List<String>>() {};
+
+	static final Key<List<String>> TARGET_KEY = Key.get(LIST_OF_STRINGS_LITERAL, "target");
+
+	private BenchmarkBindings() {
+	}
+
+	/**
+	 * Returns a module binding the measured providers and filler providers,
+	 * {@code bindings} providers in total.
+	 */
+	static Module module(final int bindings, final boolean cached) {
+		return new Module() {
+			@Override
+			protected void bind() {
+				final Injector injector = getInjector();
+				bindProvider(new SyntheticProvider(injector, "service", Service.class, new Type[0], cached) {
+					@Override
+					Object get(Object[] dependencyValues) {
+						return new Service();
+					}
+				});
+				bindProvider(new SyntheticProvider(injector, "target", LIST_OF_STRINGS, new Type[0], cached) {
+					@Override
+					Object get(Object[] dependencyValues) {
+						return null;
+					}
+				});
+				bindProvider(new SyntheticProvider(injector, "summary", Summary.class,
+						new Type[] { Types.parameterized(Collection.class, String.class) }, cached) {
+					@Override
+					Object get(Object[] dependencyValues) {
+						return new Summary(((Collection<?>) dependencyValues[0]).size());
+					}
+				});
+				bindProvider(new SyntheticProvider(injector, "holder", Holder.class,
+						new Type[] { Types.parameterized(Provider.class, Service.class) }, cached) {
+					@Override
+					Object get(Object[] dependencyValues) {
+						return new Holder((Provider<?>) dependencyValues[0]);
+					}
+				});
+				for (int i = 4; i < bindings; i++) {
+					final String value = "filler" + i;
+					bindProvider(new SyntheticProvider(injector, value, (i % 2 == 0 ? String.class : LIST_OF_STRINGS),
+							new Type[0], cached) {
+						@Override
+						Object get(Object[] dependencyValues) {
+							return value;
+						}
+					});
+				}
+			}
+		};
+	}
+
+	/**
+	 * Provider that is not backed by a method, so any number of them can be bound.
+	 */
+	static abstract class SyntheticProvider extends Provider<Object> {
+
+		private final String name;
+		private final Type type;
+		private final Type[] dependencies;
+
+		SyntheticProvider(Injector injector, String name, Type type, Type[] dependencies, boolean cached) {
+			this.name = name;
+			this.type = type;
+			this.dependencies = dependencies;
+			setInjector(injector);
+			setCached(cached);
+		}
+
+		@Override
+		String getName() {
+			return name;
+		}
+
+		@Override
+		Type getType() {
+			return type;
+		}
+
+		@Override
+		Type[] getDependencies() {
+			return dependencies;
+		}
+
+		@Override
+		String getDependencyName(int i) {
+			return null;
+		}
+
+		@Override
+		public String toString() {
+			return "SyntheticProvider[" + name + "]";
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package fluf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calls through the {@link Factory} implementation generated by {@code fluf-processor}
+ * compared with calls through a dynamic proxy of the same interface, shaped like the
+ * sample's {@code Application.BikeFactory}.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactoryBenchmark {
+
+	public static class Color {
+	}
+
+	public static class Bike {
+		final Color color;
+		final int size;
+
+		Bike(Color color, int size) {
+			this.color = color;
+			this.size = size;
+		}
+	}
+
+	public static class BikeModule extends Module {
+
+		@Bind
+		Bike makeMeABike(Color color) {
+			return new Bike(color, 26);
+		}
+
+		@Bind
+		Bike sizedBike(Color color, int size) {
+			return new Bike(color, size);
+		}
+	}
+
+	@Factory
+	public interface BikeFactory {
+		Bike makeMeABike(Color color);
+
+		@Bind("makeMeABike")
+		Bike createBike(Color color);
+
+		Bike sizedBike(Color color, int size);
+	}
+
+	private final Color red = new Color();
+
+	private BikeFactory generated;
+
+	private BikeFactory proxy;
+
+	@Setup
+	public void setUp() {
+		final Injector injector = Fluf.createInjector(new BikeModule());
+		generated = Fluf.createProxy(BikeFactory.class, injector);
+		if (!(generated instanceof GeneratedFactory)) {
+			throw new IllegalStateException("fluf-processor generated no factory of " + BikeFactory.class);
+		}
+		proxy = new Fluf(injector).asProxy(BikeFactory.class);
+	}
+
+	@Benchmark
+	public Bike generated() {
+		return generated.createBike(red);
+	}
+
+	@Benchmark
+	public Bike proxy() {
+		return proxy.createBike(red);
+	}
+
+	@Benchmark
+	public Bike generatedTwoArguments() {
+		return generated.sizedBike(red, 28);
+	}
+
+	@Benchmark
+	public Bike proxyTwoArguments() {
+		return proxy.sizedBike(red, 28);
+	}
+}
@@ -0,0 +1,75 @@
+package fluf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Injector#get(Class)} latency of a child injector before and after
+ * {@link Injector#freeze()}. An unfrozen child injector sums the versions of the whole
+ * hierarchy on every lookup to check that its dependency plans are current.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FreezeBenchmark {
+
+	static class Service {
+	}
+
+	static class ServiceModule extends Module {
+
+		@Bind
+		Integer number() {
+			return 42;
+		}
+
+		@Bind
+		String text(Integer number) {
+			return "text";
+		}
+
+		@Bind
+		Service service(String text, Integer number) {
+			return new Service();
+		}
+	}
+
+	static class ParentModule extends Module {
+
+		@Bind
+		Long parentNumber() {
+			return 1L;
+		}
+	}
+
+	@Param({ "false", "true" })
+	boolean frozen;
+
+	private Injector injector;
+
+	@Setup
+	public void setUp() {
+		injector = Fluf.createInjector(new ParentModule()).extendWith(new ServiceModule());
+		if (frozen) {
+			injector.freeze();
+		}
+	}
+
+	@Benchmark
+	public Service get() {
+		return injector.get(Service.class);
+	}
+}
@@ -0,0 +1,104 @@
+package fluf;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fluf.BenchmarkBindings.Api;
+import fluf.BenchmarkBindings.Holder;
+import fluf.BenchmarkBindings.Service;
+import fluf.BenchmarkBindings.Summary;
+
+/**
+ * Benchmarks of the injector's hot paths for cached and non-cached providers
+ * and registries of 10 to 10,000 bindings.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectorBenchmark {
+
+	@Param({ "10", "100", "1000", "10000" })
+	int bindings;
+
+	@Param({ "false", "true" })
+	boolean cached;
+
+	private Injector injector;
+
+	private Api proxy;
+
+	@Setup
+	public void setUp() {
+		injector = Fluf.createInjector(BenchmarkBindings.module(bindings, cached));
+		proxy = Fluf.createProxy(Api.class, injector);
+	}
+
+	@Benchmark
+	public Injector createInjector() {
+		return Fluf.createInjector(BenchmarkBindings.module(bindings, cached));
+	}
+
+	@Benchmark
+	public Service getByClass() {
+		return injector.get(Service.class);
+	}
+
+	@Benchmark
+	public Object getByTypeLiteralAndName() {
+		return injector.get(BenchmarkBindings.LIST_OF_STRINGS_LITERAL, "target");
+	}
+
+	@Benchmark
+	public Object getByKey() {
+		return injector.get(BenchmarkBindings.TARGET_KEY);
+	}
+
+	@Benchmark
+	public String getFromMap() {
+		return injector.getMap(String.class).get("filler" + (bindings - 2));
+	}
+
+	@Benchmark
+	public Collection<String> getAllByRegex() {
+		return injector.getAll(String.class, "filler1.*");
+	}
+
+	@Benchmark
+	public Summary collectionInjection() {
+		return injector.get(Summary.class);
+	}
+
+	@Benchmark
+	public Holder providerInjection() {
+		return injector.get(Holder.class);
+	}
+
+	@Benchmark
+	public Api createProxy() {
+		return Fluf.createProxy(Api.class, injector);
+	}
+
+	@Benchmark
+	public Service proxyDispatch() {
+		return proxy.service();
+	}
+
+	@Benchmark
+	public Injector extendWith() {
+		return injector.extendWith();
+	}
+}
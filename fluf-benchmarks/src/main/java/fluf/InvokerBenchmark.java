@@ -0,0 +1,81 @@
+package fluf;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calling a provider method through {@link Method#invoke(Object, Object...)} compared to
+ * a {@link java.lang.invoke.MethodHandle}, for provider methods with 0, 1 and 5 parameters.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokerBenchmark {
+
+	static class InvokerModule extends Module {
+
+		@Bind
+		Object zero() {
+			return this;
+		}
+
+		@Bind
+		Object one(Object a) {
+			return a;
+		}
+
+		@Bind
+		Object five(Object a, Object b, Object c, Object d, Object e) {
+			return e;
+		}
+	}
+
+	@Param({ "zero", "one", "five" })
+	String method;
+
+	private Object[] args;
+
+	private MethodInvoker reflective;
+
+	private MethodInvoker handle;
+
+	@Setup
+	public void setUp() throws Exception {
+		final InvokerModule module = new InvokerModule();
+		for (Method m : InvokerModule.class.getDeclaredMethods()) {
+			if (m.getName().equals(method)) {
+				m.setAccessible(true);
+				reflective = new MethodInvoker.ReflectiveInvoker(module, m);
+				handle = new MethodInvoker.MethodHandleInvoker(module, m);
+				args = new Object[m.getParameterTypes().length];
+			}
+		}
+		for (int i = 0; i < args.length; i++) {
+			args[i] = "arg" + i;
+		}
+	}
+
+	@Benchmark
+	public Object methodInvoke() throws Throwable {
+		return reflective.invoke(args);
+	}
+
+	@Benchmark
+	public Object methodHandle() throws Throwable {
+		return handle.invoke(args);
+	}
+}
@@ -0,0 +1,75 @@
+package fluf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Leasing an instance with a large buffer from a pooled provider compared to a provider
+ * creating a new instance for every lease. Run with {@code -prof gc} to compare allocation
+ * rates and garbage collections.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolBenchmark {
+
+	static class Codec {
+		final byte[] buffer = new byte[64 * 1024];
+	}
+
+	static class CodecModule extends Module {
+
+		@Bind
+		Codec newCodec() {
+			return new Codec();
+		}
+
+		@Bind(pool = 64)
+		Codec pooledCodec() {
+			return new Codec();
+		}
+	}
+
+	private Provider<Codec> newCodec;
+
+	private Provider<Codec> pooledCodec;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		final Injector injector = Fluf.createInjector(new CodecModule());
+		newCodec = injector.find(Codec.class, "newCodec", null);
+		pooledCodec = injector.find(Codec.class, "pooledCodec", null);
+	}
+
+	@Benchmark
+	public int newInstance() {
+		return lease(newCodec);
+	}
+
+	@Benchmark
+	public int pooled() {
+		return lease(pooledCodec);
+	}
+
+	private static int lease(Provider<Codec> provider) {
+		final Lease<Codec> lease = provider.lease();
+		try {
+			return lease.get().buffer.length;
+		} finally {
+			lease.close();
+		}
+	}
+}
@@ -0,0 +1,368 @@
+package fluf.processor;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor generating a {@code fluf.ModuleBinder} for every concrete
+ * {@code fluf.Module} subclass. The binder registers the module's {@code @Bind} methods
+ * and calls them directly, so binding a module needs no reflective method scanning
+ * and providing an instance needs no {@code Method.invoke}. Methods with up to three
+ * parameters can also be called without an argument array, which generated factories do.
+ * <p>
+ * Modules whose provider methods cannot be called or described from generated code,
+ * for example methods using type variables or inaccessible types, get no binder and
+ * are bound using reflection as before.
+ * <p>
+ * The processor claims {@code fluf.Bind}, so it only runs for compilations using it. Modules
+ * compiled without any {@code @Bind} method, like subclasses of a module from a library,
+ * get no binder.
+ */
+@SupportedAnnotationTypes(BinderProcessor.BIND)
+public class BinderProcessor extends AbstractProcessor {
+
+	private static final String MODULE = "fluf.Module";
+
+	static final String BIND = "fluf.Bind";
+
+	private static final String SUFFIX = "_FlufBinder";
+
+	/** Largest number of parameters of provider methods callable without an argument array. */
+	private static final int DIRECT_ARITY = 3;
+
+	/** Modules whose binders were already generated in previous rounds. */
+	private final Set<String> processed = new HashSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		final TypeElement module = processingEnv.getElementUtils().getTypeElement(MODULE);
+		if (module == null) {
+			return false;
+		}
+		final List<TypeElement> modules = new ArrayList<TypeElement>();
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			collectModules(type, module, modules);
+		}
+		for (TypeElement type : modules) {
+			if (processed.add(type.getQualifiedName().toString())) {
+				generate(type);
+			}
+		}
+		return true;
+	}
+
+	private void collectModules(TypeElement type, TypeElement module, List<TypeElement> modules) {
+		if (type.getKind() == ElementKind.CLASS
+				&& !type.getModifiers().contains(Modifier.ABSTRACT)
+				&& processingEnv.getTypeUtils().isSubtype(
+						processingEnv.getTypeUtils().erasure(type.asType()),
+						processingEnv.getTypeUtils().erasure(module.asType()))) {
+			modules.add(type);
+		}
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+			collectModules(nested, module, modules);
+		}
+	}
+
+	private void generate(TypeElement module) {
+		final String packageName = packageOf(module).getQualifiedName().toString();
+		final String binderName = SourceTypes.flatName(module) + SUFFIX;
+		final String source;
+		try {
+			source = new BinderWriter(module, packageName, binderName).write();
+		} catch (UnsupportedException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+					String.format("No binder generated for %s, it will be bound using reflection: %s",
+							module.getQualifiedName(), e.getMessage()), module);
+			return;
+		}
+		SourceTypes.writeSource(processingEnv, packageName, binderName, source, module);
+	}
+
+	/**
+	 * Writes the source of a single module's binder.
+	 */
+	private class BinderWriter {
+
+		private final TypeElement module;
+
+		private final String packageName;
+
+		private final String binderName;
+
+		private final SourceTypes sourceTypes;
+
+		private final StringBuilder binds = new StringBuilder();
+
+		private final StringBuilder invocations = new StringBuilder();
+
+		/** Cases of the invoke methods without an argument array, by number of parameters. */
+		private final StringBuilder[] directInvocations = new StringBuilder[DIRECT_ARITY + 1];
+
+		BinderWriter(TypeElement module, String packageName, String binderName) {
+			this.module = module;
+			this.packageName = packageName;
+			this.binderName = binderName;
+			this.sourceTypes = new SourceTypes(processingEnv, packageName);
+		}
+
+		String write() {
+			sourceTypes.checkReferable(module);
+			final String moduleName = module.getQualifiedName().toString();
+			final List<ExecutableElement> methods = providerMethods();
+			for (int i = 0; i < methods.size(); i++) {
+				writeMethod(i, methods.get(i));
+			}
+			final StringBuilder sb = new StringBuilder();
+			if (packageName.length() > 0) {
+				sb.append("package ").append(packageName).append(";\n\n");
+			}
+			sb.append("/**\n * Binder of {@link ").append(moduleName).append("}, generated by ")
+				.append(BinderProcessor.class.getName()).append(".\n */\n");
+			sb.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+			sb.append("public final class ").append(binderName)
+				.append(" extends fluf.ModuleBinder<").append(moduleName).append("> {\n\n");
+			sb.append("\t@Override\n");
+			sb.append("\tprotected void bindProviders(").append(moduleName).append(" module) {\n");
+			sb.append(binds);
+			sb.append("\t}\n\n");
+			sb.append("\t@Override\n");
+			sb.append("\tprotected java.lang.Object invoke(").append(moduleName)
+				.append(" module, int index, java.lang.Object[] args) throws java.lang.Throwable {\n");
+			sb.append("\t\tswitch (index) {\n");
+			sb.append(invocations);
+			sb.append("\t\tdefault:\n");
+			sb.append("\t\t\tthrow new java.lang.IllegalArgumentException(\"No provider method at index \" + index);\n");
+			sb.append("\t\t}\n");
+			sb.append("\t}\n");
+			for (int arity = 1; arity <= DIRECT_ARITY; arity++) {
+				if (directInvocations[arity] != null) {
+					writeDirectInvoke(sb, moduleName, arity);
+				}
+			}
+			sb.append("}\n");
+			return sb.toString();
+		}
+
+		private void writeDirectInvoke(StringBuilder sb, String moduleName, int arity) {
+			final StringBuilder params = new StringBuilder();
+			final StringBuilder args = new StringBuilder();
+			for (int i = 0; i < arity; i++) {
+				params.append(", java.lang.Object arg").append(i);
+				args.append(", arg").append(i);
+			}
+			sb.append("\n\t@Override\n");
+			sb.append("\tprotected java.lang.Object invoke(").append(moduleName)
+				.append(" module, int index").append(params).append(") throws java.lang.Throwable {\n");
+			sb.append("\t\tswitch (index) {\n");
+			sb.append(directInvocations[arity]);
+			sb.append("\t\tdefault:\n");
+			sb.append("\t\t\treturn super.invoke(module, index").append(args).append(");\n");
+			sb.append("\t\t}\n");
+			sb.append("\t}\n");
+		}
+
+		/**
+		 * Returns provider methods of the module and its super classes, skipping private
+		 * methods and overridden methods the same way {@code Module.bindProviderMethods()} does.
+		 */
+		private List<ExecutableElement> providerMethods() {
+			final List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+			for (TypeElement c = module; c != null; c = superclass(c)) {
+				for (ExecutableElement m : ElementFilter.methodsIn(c.getEnclosedElements())) {
+					if (bindAnnotation(m) != null
+							&& !m.getModifiers().contains(Modifier.PRIVATE)
+							&& !isOverride(m, methods)) {
+						methods.add(m);
+					}
+				}
+			}
+			return methods;
+		}
+
+		private void writeMethod(int index, ExecutableElement method) {
+			if (!method.getTypeParameters().isEmpty()) {
+				throw new UnsupportedException(method + " declares type parameters");
+			}
+			final TypeElement declaring = (TypeElement) method.getEnclosingElement();
+			if (!method.getModifiers().contains(Modifier.PUBLIC)
+					&& !packageOf(declaring).getQualifiedName().contentEquals(packageName)) {
+				throw new UnsupportedException(method + " is not accessible from package " + packageName);
+			}
+			final List<? extends VariableElement> params = method.getParameters();
+			final StringBuilder dependencyTypes = new StringBuilder();
+			final StringBuilder names = new StringBuilder();
+			final StringBuilder args = new StringBuilder();
+			final StringBuilder directArgs = new StringBuilder();
+			for (int i = 0; i < params.size(); i++) {
+				final TypeMirror type = params.get(i).asType();
+				final AnnotationMirror bind = bindAnnotation(params.get(i));
+				final String name = (bind == null ? "" : (String) annotationValue(bind, "value"));
+				dependencyTypes.append(i == 0 ? "" : ", ").append(sourceTypes.typeExpression(type));
+				names.append(i == 0 ? "" : ", ").append(name.length() == 0 ? "null" : constant(name));
+				args.append(i == 0 ? "" : ", ").append("(").append(sourceTypes.castName(type)).append(") args[").append(i).append("]");
+				directArgs.append(i == 0 ? "" : ", ").append("(").append(sourceTypes.castName(type)).append(") arg").append(i);
+			}
+
+			binds.append("\t\tbind(module, ").append(index)
+				.append(", ").append(constant(method.getSimpleName().toString()))
+				.append(",\n\t\t\t\t").append(sourceTypes.typeExpression(method.getReturnType()))
+				.append(",\n\t\t\t\tnew java.lang.reflect.Type[] ").append(sourceTypes.arrayInitializer(dependencyTypes))
+				.append(",\n\t\t\t\tnew java.lang.String[] ").append(sourceTypes.arrayInitializer(names))
+				.append(",\n\t\t\t\t").append(constant(signature(method)));
+			for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e
+					: bindAnnotation(method).getElementValues().entrySet()) {
+				binds.append(",\n\t\t\t\t").append(constant(e.getKey().getSimpleName().toString()))
+					.append(", ").append(attributeValue(e.getValue()));
+			}
+			binds.append(");\n");
+
+			final String target = (method.getModifiers().contains(Modifier.STATIC)
+					? declaring.getQualifiedName().toString() : "module");
+			writeCase(invocations, index, method, target + "." + method.getSimpleName() + "(" + args + ")");
+			final int arity = params.size();
+			if (arity >= 1 && arity <= DIRECT_ARITY) {
+				if (directInvocations[arity] == null) {
+					directInvocations[arity] = new StringBuilder();
+				}
+				writeCase(directInvocations[arity], index, method, target + "." + method.getSimpleName() + "(" + directArgs + ")");
+			}
+		}
+
+		private void writeCase(StringBuilder cases, int index, ExecutableElement method, String call) {
+			cases.append("\t\tcase ").append(index).append(":\n");
+			if (method.getReturnType().getKind() == TypeKind.VOID) {
+				cases.append("\t\t\t").append(call).append(";\n");
+				cases.append("\t\t\treturn null;\n");
+			} else {
+				cases.append("\t\t\treturn ").append(call).append(";\n");
+			}
+		}
+
+		private String signature(ExecutableElement method) {
+			final StringBuilder sb = new StringBuilder();
+			for (Modifier m : method.getModifiers()) {
+				sb.append(m).append(' ');
+			}
+			sb.append(processingEnv.getTypeUtils().erasure(method.getReturnType())).append(' ')
+				.append(processingEnv.getElementUtils().getBinaryName((TypeElement) method.getEnclosingElement()))
+				.append('.').append(method.getSimpleName()).append('(');
+			final List<? extends VariableElement> params = method.getParameters();
+			for (int i = 0; i < params.size(); i++) {
+				sb.append(i == 0 ? "" : ",").append(processingEnv.getTypeUtils().erasure(params.get(i).asType()));
+			}
+			return sb.append(')').toString();
+		}
+
+		private String attributeValue(AnnotationValue value) {
+			final Object v = value.getValue();
+			if (v instanceof VariableElement) {
+				final VariableElement constant = (VariableElement) v;
+				return ((TypeElement) constant.getEnclosingElement()).getQualifiedName() + "." + constant.getSimpleName();
+			}
+			if (v instanceof TypeMirror) {
+				return sourceTypes.castName((TypeMirror) v) + ".class";
+			}
+			if (v instanceof List || v instanceof AnnotationMirror) {
+				throw new UnsupportedException("attribute value " + value);
+			}
+			return constant(v);
+		}
+	}
+
+	private boolean isOverride(ExecutableElement method, List<ExecutableElement> processed) {
+		final javax.lang.model.util.Types types = processingEnv.getTypeUtils();
+		for (ExecutableElement m : processed) {
+			if (!m.getSimpleName().contentEquals(method.getSimpleName())
+					|| !types.isSameType(types.erasure(m.getReturnType()), types.erasure(method.getReturnType()))
+					|| m.getParameters().size() != method.getParameters().size()) {
+				continue;
+			}
+			boolean same = true;
+			for (int i = 0; i < m.getParameters().size() && same; i++) {
+				same = types.isSameType(types.erasure(m.getParameters().get(i).asType()),
+						types.erasure(method.getParameters().get(i).asType()));
+			}
+			if (same) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private TypeElement superclass(TypeElement type) {
+		final TypeMirror superclass = type.getSuperclass();
+		return (superclass.getKind() == TypeKind.DECLARED
+				? (TypeElement) ((DeclaredType) superclass).asElement() : null);
+	}
+
+	private AnnotationMirror bindAnnotation(Element element) {
+		for (AnnotationMirror a : element.getAnnotationMirrors()) {
+			if (((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(BIND)) {
+				return a;
+			}
+		}
+		return null;
+	}
+
+	private Object annotationValue(AnnotationMirror annotation, String name) {
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e
+				: processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+			if (e.getKey().getSimpleName().contentEquals(name)) {
+				return e.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	private String constant(Object value) {
+		return processingEnv.getElementUtils().getConstantExpression(value);
+	}
+
+	private PackageElement packageOf(Element element) {
+		return processingEnv.getElementUtils().getPackageOf(element);
+	}
+}
@@ -0,0 +1,237 @@
+package fluf.processor;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor generating a {@code fluf.GeneratedFactory} implementation for every
+ * interface annotated with {@code fluf.Factory}. Generated methods pass their arguments to
+ * {@code fluf.GeneratedFactory.invoke} instead of going through a dynamic proxy's invocation
+ * handler. Methods with up to three arguments pass them without an argument array.
+ * <p>
+ * Interfaces that cannot be implemented by generated code, for example ones using type
+ * variables, get no implementation and are created as dynamic proxies as before.
+ */
+@SupportedAnnotationTypes(FactoryProcessor.FACTORY)
+public class FactoryProcessor extends AbstractProcessor {
+
+	static final String FACTORY = "fluf.Factory";
+
+	private static final String BIND = "fluf.Bind";
+
+	private static final String SUFFIX = "_FlufFactory";
+
+	/** Largest number of arguments passed to {@code fluf.GeneratedFactory.invoke} without an array. */
+	private static final int DIRECT_ARITY = 3;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		final TypeElement factory = processingEnv.getElementUtils().getTypeElement(FACTORY);
+		if (factory == null) {
+			return false;
+		}
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(factory))) {
+			if (type.getKind() != ElementKind.INTERFACE) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"@Factory can only be used on interfaces", type);
+				continue;
+			}
+			generate(type);
+		}
+		return true;
+	}
+
+	private void generate(TypeElement factory) {
+		final String packageName = processingEnv.getElementUtils().getPackageOf(factory).getQualifiedName().toString();
+		final String className = SourceTypes.flatName(factory) + SUFFIX;
+		final String source;
+		try {
+			source = new FactoryWriter(factory, packageName, className).write();
+		} catch (UnsupportedException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+					String.format("No factory generated for %s, it will be created as a dynamic proxy: %s",
+							factory.getQualifiedName(), e.getMessage()), factory);
+			return;
+		}
+		SourceTypes.writeSource(processingEnv, packageName, className, source, factory);
+	}
+
+	/**
+	 * Writes the source of a single interface's factory.
+	 */
+	private class FactoryWriter {
+
+		private final TypeElement factory;
+
+		private final String packageName;
+
+		private final String className;
+
+		private final SourceTypes sourceTypes;
+
+		private final StringBuilder names = new StringBuilder();
+
+		private final StringBuilder returnTypes = new StringBuilder();
+
+		private final StringBuilder argumentTypes = new StringBuilder();
+
+		private final StringBuilder methods = new StringBuilder();
+
+		FactoryWriter(TypeElement factory, String packageName, String className) {
+			this.factory = factory;
+			this.packageName = packageName;
+			this.className = className;
+			this.sourceTypes = new SourceTypes(processingEnv, packageName);
+		}
+
+		String write() {
+			sourceTypes.checkReferable(factory);
+			if (!factory.getTypeParameters().isEmpty()) {
+				throw new UnsupportedException(factory + " declares type parameters");
+			}
+			final String factoryName = factory.getQualifiedName().toString();
+			final List<ExecutableElement> factoryMethods = factoryMethods();
+			for (int i = 0; i < factoryMethods.size(); i++) {
+				writeMethod(i, factoryMethods.get(i));
+			}
+			final StringBuilder sb = new StringBuilder();
+			if (packageName.length() > 0) {
+				sb.append("package ").append(packageName).append(";\n\n");
+			}
+			sb.append("/**\n * Factory implementing {@link ").append(factoryName).append("}, generated by ")
+				.append(FactoryProcessor.class.getName()).append(".\n */\n");
+			sb.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+			sb.append("public final class ").append(className)
+				.append(" extends fluf.GeneratedFactory implements ").append(factoryName).append(" {\n\n");
+			sb.append("\tpublic ").append(className).append("(fluf.Injector injector) {\n");
+			sb.append("\t\tsuper(injector,\n");
+			sb.append("\t\t\t\tnew java.lang.String[] ").append(sourceTypes.arrayInitializer(names)).append(",\n");
+			sb.append("\t\t\t\tnew java.lang.reflect.Type[] ").append(sourceTypes.arrayInitializer(returnTypes)).append(",\n");
+			sb.append("\t\t\t\tnew java.lang.reflect.Type[][] ").append(sourceTypes.arrayInitializer(argumentTypes)).append(");\n");
+			sb.append("\t}\n");
+			sb.append(methods);
+			sb.append("}\n");
+			return sb.toString();
+		}
+
+		/**
+		 * Returns abstract methods of the interface and its super interfaces, each signature only once.
+		 */
+		private List<ExecutableElement> factoryMethods() {
+			final Types types = processingEnv.getTypeUtils();
+			final List<ExecutableElement> result = new ArrayList<ExecutableElement>();
+			for (ExecutableElement m : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(factory))) {
+				if (!m.getModifiers().contains(Modifier.ABSTRACT)
+						|| m.getEnclosingElement().getKind() != ElementKind.INTERFACE) {
+					continue;
+				}
+				boolean duplicate = false;
+				for (ExecutableElement other : result) {
+					duplicate = duplicate || (other.getSimpleName().contentEquals(m.getSimpleName())
+							&& types.isSubsignature((ExecutableType) m.asType(), (ExecutableType) other.asType()));
+				}
+				if (!duplicate) {
+					result.add(m);
+				}
+			}
+			return result;
+		}
+
+		private void writeMethod(int index, ExecutableElement method) {
+			if (!method.getTypeParameters().isEmpty()) {
+				throw new UnsupportedException(method + " declares type parameters");
+			}
+			final AnnotationMirror bind = bindAnnotation(method);
+			final String boundName = (bind == null ? "" : bindValue(bind));
+			final String name = (boundName.length() == 0 ? method.getSimpleName().toString() : boundName);
+			final TypeMirror returnType = method.getReturnType();
+			final List<? extends VariableElement> params = method.getParameters();
+
+			final StringBuilder types = new StringBuilder();
+			final StringBuilder declaration = new StringBuilder();
+			final StringBuilder args = new StringBuilder();
+			for (int i = 0; i < params.size(); i++) {
+				final TypeMirror type = params.get(i).asType();
+				types.append(i == 0 ? "" : ", ").append(sourceTypes.typeExpression(type));
+				declaration.append(i == 0 ? "" : ", ").append(sourceTypes.erasureName(type)).append(" arg").append(i);
+				// an array argument passed alone would be taken for the argument array
+				args.append(i == 0 ? "" : ", ").append(type.getKind() == TypeKind.ARRAY ? "(java.lang.Object) " : "")
+					.append("arg").append(i);
+			}
+			names.append(index == 0 ? "" : ", ").append(sourceTypes.constant(name));
+			returnTypes.append(index == 0 ? "" : ", ").append(sourceTypes.typeExpression(returnType));
+			argumentTypes.append(index == 0 ? "" : ", ").append(sourceTypes.arrayInitializer(types));
+
+			final String call = "invoke(" + index
+					+ (params.isEmpty() ? "" : params.size() <= DIRECT_ARITY ? ", " + args : ", new java.lang.Object[] { " + args + " }") + ")";
+			methods.append("\n\t@Override\n");
+			methods.append("\tpublic ").append(sourceTypes.erasureName(returnType)).append(' ')
+				.append(method.getSimpleName()).append('(').append(declaration).append(") {\n");
+			if (returnType.getKind() == TypeKind.VOID) {
+				methods.append("\t\t").append(call).append(";\n");
+			} else {
+				methods.append("\t\treturn (").append(sourceTypes.castName(returnType)).append(") ").append(call).append(";\n");
+			}
+			methods.append("\t}\n");
+		}
+	}
+
+	private AnnotationMirror bindAnnotation(ExecutableElement method) {
+		for (AnnotationMirror a : method.getAnnotationMirrors()) {
+			if (((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(BIND)) {
+				return a;
+			}
+		}
+		return null;
+	}
+
+	private String bindValue(AnnotationMirror bind) {
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : bind.getElementValues().entrySet()) {
+			if (e.getKey().getSimpleName().contentEquals("value")) {
+				return (String) e.getValue().getValue();
+			}
+		}
+		return "";
+	}
+}
@@ -0,0 +1,196 @@
+package fluf.processor;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+
+/**
+ * Writes java source expressions describing types for code generated into a given package.
+ * Throws {@link UnsupportedException} for types generated code cannot describe or refer to.
+ */
+class SourceTypes {
+
+	private final ProcessingEnvironment processingEnv;
+
+	/** Package of the generated code. */
+	private final String packageName;
+
+	SourceTypes(ProcessingEnvironment processingEnv, String packageName) {
+		this.processingEnv = processingEnv;
+		this.packageName = packageName;
+	}
+
+	/**
+	 * Returns a java expression evaluating to a {@code java.lang.reflect.Type} equal to
+	 * what reflection returns for the given type.
+	 */
+	String typeExpression(TypeMirror type) {
+		switch (type.getKind()) {
+		case BOOLEAN: case BYTE: case SHORT: case INT: case LONG: case CHAR: case FLOAT: case DOUBLE: case VOID:
+			return type.toString() + ".class";
+		case ARRAY:
+			// arrays of parameterized types are GenericArrayTypes rather than classes
+			if (!isClassLike(((ArrayType) type).getComponentType())) {
+				throw new UnsupportedException("generic array type " + type);
+			}
+			return castName(type) + ".class";
+		case DECLARED:
+			final DeclaredType declared = (DeclaredType) type;
+			checkReferable((TypeElement) declared.asElement());
+			if (declared.getTypeArguments().isEmpty()) {
+				return rawName(declared) + ".class";
+			}
+			if (declared.getEnclosingType().getKind() == TypeKind.DECLARED
+					&& !((DeclaredType) declared.getEnclosingType()).getTypeArguments().isEmpty()) {
+				throw new UnsupportedException("type with a parameterized owner " + type);
+			}
+			final StringBuilder sb = new StringBuilder("fluf.Types.parameterized(")
+				.append(rawName(declared)).append(".class");
+			for (TypeMirror arg : declared.getTypeArguments()) {
+				sb.append(", ").append(typeExpression(arg));
+			}
+			return sb.append(")").toString();
+		case WILDCARD:
+			final WildcardType wildcard = (WildcardType) type;
+			return "fluf.Types.wildcard(new java.lang.reflect.Type[] { "
+				+ (wildcard.getExtendsBound() == null ? "" : typeExpression(wildcard.getExtendsBound()))
+				+ " }, new java.lang.reflect.Type[] { "
+				+ (wildcard.getSuperBound() == null ? "" : typeExpression(wildcard.getSuperBound()))
+				+ " })";
+		default:
+			throw new UnsupportedException("type " + type + " of kind " + type.getKind());
+		}
+	}
+
+	String arrayInitializer(CharSequence elements) {
+		return (elements.length() == 0 ? "{}" : "{ " + elements + " }");
+	}
+
+	boolean isClassLike(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return true;
+		}
+		if (type.getKind() == TypeKind.ARRAY) {
+			return isClassLike(((ArrayType) type).getComponentType());
+		}
+		return type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty();
+	}
+
+	/**
+	 * Returns the name of the type an argument is cast to before it is passed to
+	 * a provider method. Primitives are cast to their boxes and unboxed by the call.
+	 */
+	String castName(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type)
+					.getQualifiedName().toString();
+		}
+		final TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+		if (erasure.getKind() == TypeKind.ARRAY) {
+			final TypeMirror component = ((ArrayType) erasure).getComponentType();
+			return (component.getKind().isPrimitive() ? component.toString() : castName(component)) + "[]";
+		}
+		if (erasure.getKind() == TypeKind.DECLARED) {
+			checkReferable((TypeElement) ((DeclaredType) erasure).asElement());
+			return rawName((DeclaredType) erasure);
+		}
+		throw new UnsupportedException("type " + type + " of kind " + type.getKind());
+	}
+
+	/**
+	 * Returns the name of the type's erasure as written in a method signature.
+	 */
+	String erasureName(TypeMirror type) {
+		if (type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID) {
+			return type.toString();
+		}
+		return castName(type);
+	}
+
+	String rawName(DeclaredType type) {
+		return ((TypeElement) type.asElement()).getQualifiedName().toString();
+	}
+
+	/**
+	 * Checks that the generated binder can refer to the given type by name.
+	 */
+	void checkReferable(TypeElement type) {
+		for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+			final TypeElement t = (TypeElement) e;
+			if (t.getNestingKind() == NestingKind.ANONYMOUS || t.getNestingKind() == NestingKind.LOCAL
+					|| t.getModifiers().contains(Modifier.PRIVATE)
+					|| (!t.getModifiers().contains(Modifier.PUBLIC)
+							&& !packageOf(t).getQualifiedName().contentEquals(packageName))) {
+				throw new UnsupportedException(type + " is not accessible from package " + packageName);
+			}
+		}
+	}
+
+	String constant(Object value) {
+		return processingEnv.getElementUtils().getConstantExpression(value);
+	}
+
+	PackageElement packageOf(Element element) {
+		return processingEnv.getElementUtils().getPackageOf(element);
+	}
+
+	/**
+	 * Returns names of the type and its enclosing types joined by underscores, the same
+	 * way {@code ModuleBinder} derives binder names from binary class names.
+	 */
+	static String flatName(TypeElement type) {
+		String name = type.getSimpleName().toString();
+		for (Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+			name = e.getSimpleName() + "_" + name;
+		}
+		return name;
+	}
+
+	/**
+	 * Writes a generated source file, reporting an error if it cannot be written.
+	 */
+	static void writeSource(ProcessingEnvironment processingEnv, String packageName, String simpleName,
+			String source, Element origin) {
+		final String qualifiedName = (packageName.length() == 0 ? "" : packageName + ".") + simpleName;
+		try {
+			Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, origin).openWriter();
+			try {
+				writer.write(source);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Cannot write " + qualifiedName + ": " + e.getMessage(), origin);
+		}
+	}
+}
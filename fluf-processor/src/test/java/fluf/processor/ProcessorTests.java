@@ -0,0 +1,206 @@
+package fluf.processor;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import fluf.Fluf;
+import fluf.Injector;
+import fluf.Module;
+import junit.framework.TestCase;
+
+public class ProcessorTests extends TestCase {
+
+	private static final String GENERATED_MODULE = "package acme;\n"
+			+ "import java.util.*;\n"
+			+ "import fluf.Bind;\n"
+			+ "import fluf.Factory;\n"
+			+ "import fluf.Module;\n"
+			+ "public class Modules {\n"
+			+ "  public static class BaseModule extends Module {\n"
+			+ "    @Bind Integer number() { return 1; }\n"
+			+ "    @Bind(\"named\") String text() { return \"base\"; }\n"
+			+ "  }\n"
+			+ "  public static class AppModule extends BaseModule {\n"
+			+ "    @Bind @Override Integer number() { return 2; }\n"
+			+ "    @Bind(cache = true) static StringBuilder builder() { return new StringBuilder(); }\n"
+			+ "    @Bind long primitive(int number) { return number * 10L; }\n"
+			+ "    @Bind List<? extends Number> numbers(@Bind(\"number\") Integer n, Collection<String> texts) {\n"
+			+ "      return Arrays.asList(n, texts.size());\n"
+			+ "    }\n"
+			+ "    @Bind Double total(int a, int b, int c, int d) { return (double) (a + b + c + d); }\n"
+			+ "    @Bind Character first(String[] parts) { return parts[0].charAt(0); }\n"
+			+ "  }\n"
+			+ "  public static class GenericModule<T> extends Module {\n"
+			+ "    @Bind List<T> items() { return new ArrayList<T>(); }\n"
+			+ "  }\n"
+			+ "  public static class StringsModule extends GenericModule<String> {\n"
+			+ "  }\n"
+			+ "  @Factory public interface NumberFactory {\n"
+			+ "    @Bind(\"primitive\") long times(int number);\n"
+			+ "    Integer number();\n"
+			+ "    @Bind(\"primitive\") List<Long> batch(int count, int number);\n"
+			+ "    Double total(int a, int b, int c, int d);\n"
+			+ "    Character first(String[] parts);\n"
+			+ "  }\n"
+			+ "}\n";
+
+	private File dir;
+
+	private URLClassLoader loader;
+
+	/** Diagnostics of compiling the test modules, instead of printing them. */
+	private DiagnosticCollector<JavaFileObject> diagnostics;
+
+	@Override
+	protected void setUp() throws Exception {
+		dir = new File(System.getProperty("java.io.tmpdir"), "fluf-processor-" + System.nanoTime());
+		try {
+			File source = new File(dir, "acme/Modules.java");
+			source.getParentFile().mkdirs();
+			FileWriter writer = new FileWriter(source);
+			try {
+				writer.write(GENERATED_MODULE);
+			} finally {
+				writer.close();
+			}
+			compile(dir, source);
+			loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, getClass().getClassLoader());
+		} catch (Throwable e) {
+			// tearDown() is not called when setUp() fails
+			tearDown();
+			throw e;
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (loader != null) {
+			loader.close();
+			loader = null;
+		}
+		delete(dir);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private void compile(File dir, File source) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try {
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(source);
+			List<String> options = Arrays.asList("-Xlint:all", "-d", dir.getPath(), "-s", dir.getPath(),
+					"-classpath", System.getProperty("java.class.path"));
+			diagnostics = new DiagnosticCollector<JavaFileObject>();
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, units);
+			task.setProcessors(Arrays.asList(new BinderProcessor(), new FactoryProcessor()));
+			assertTrue("compilation failed", task.call());
+		} finally {
+			fileManager.close();
+		}
+	}
+
+	private Module module(String name) throws Exception {
+		return (Module) loader.loadClass("acme.Modules$" + name).getDeclaredConstructor().newInstance();
+	}
+
+	public void testGeneratesBinders() throws Exception {
+		assertNotNull(loader.loadClass("acme.Modules_AppModule_FlufBinder"));
+		assertNotNull(loader.loadClass("acme.Modules_BaseModule_FlufBinder"));
+	}
+
+	public void testFallsBackForTypeVariables() throws Exception {
+		try {
+			loader.loadClass("acme.Modules_StringsModule_FlufBinder");
+			fail("Module with type variables should have no binder");
+		} catch (ClassNotFoundException e) {
+			// bound using reflection
+		}
+		Injector injector = Fluf.createInjector(module("StringsModule"));
+		assertNull(injector.get(List.class));
+		assertTrue(diagnostics.getDiagnostics().toString(),
+				hasDiagnostic(Diagnostic.Kind.NOTE, "No binder generated for acme.Modules.StringsModule"));
+	}
+
+	public void testCompilesWithoutWarnings() {
+		assertFalse(diagnostics.getDiagnostics().toString(), hasDiagnostic(Diagnostic.Kind.WARNING, ""));
+		assertFalse(diagnostics.getDiagnostics().toString(), hasDiagnostic(Diagnostic.Kind.MANDATORY_WARNING, ""));
+	}
+
+	private boolean hasDiagnostic(Diagnostic.Kind kind, String message) {
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == kind && diagnostic.getMessage(null).startsWith(message)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void testGeneratedBinding() throws Exception {
+		Injector injector = Fluf.createInjector(module("AppModule"));
+		assertEquals(new Integer(2), injector.get(Integer.class));
+		assertEquals("base", injector.get(String.class, "named"));
+		assertEquals(new Long(20), injector.get(Long.class));
+		assertSame(injector.get(StringBuilder.class), injector.get(StringBuilder.class));
+		assertEquals(Arrays.asList(2, 1), injector.get(new fluf.TypeLiteral<List<? extends Number>>(){}));
+	}
+
+	public void testGeneratedFactory() throws Exception {
+		@SuppressWarnings("unchecked")
+		Class<Object> factoryInterface = (Class<Object>) loader.loadClass("acme.Modules$NumberFactory");
+		Object factory = Fluf.createProxy(factoryInterface, module("AppModule"));
+		assertEquals("acme.Modules_NumberFactory_FlufFactory", factory.getClass().getName());
+		assertEquals(new Long(30), factoryInterface.getMethod("times", int.class).invoke(factory, 3));
+		assertEquals(new Integer(2), factoryInterface.getMethod("number").invoke(factory));
+		assertEquals(Arrays.asList(40L, 40L), factoryInterface.getMethod("batch", int.class, int.class).invoke(factory, 2, 4));
+		assertEquals(10.0, factoryInterface.getMethod("total", int.class, int.class, int.class, int.class).invoke(factory, 1, 2, 3, 4));
+		assertEquals('f', factoryInterface.getMethod("first", String[].class).invoke(factory, (Object) new String[] { "fluf" }));
+	}
+
+	public void testGeneratedFactoryPassesArgumentsDirectly() throws Exception {
+		String source = read(new File(dir, "acme/Modules_NumberFactory_FlufFactory.java"));
+		assertTrue(source, source.contains("invoke(0, arg0)"));
+		assertTrue(source, source.contains("invoke(1)"));
+		assertTrue(source, source.contains("invoke(3, new java.lang.Object[] { arg0, arg1, arg2, arg3 })"));
+		assertTrue(source, source.contains("invoke(4, (java.lang.Object) arg0)"));
+	}
+
+	private static String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+}
@@ -21,11 +21,24 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.function.Predicate;
 
 /**
  * Binding provider annotation. Its value can be used as a provider name qualifier
  * and <code>cache</code> attribute if set to true (false by default) tells if this provider should
- * cache its result.
+ * cache its result. The <code>scope</code> attribute can instead name a {@link Scope} class whose
+ * instance decides which instance is returned, e.g. one per thread using {@link ThreadScope},
+ * one per request using {@link RequestScope} or one per object graph using {@link ResolutionScope}.
+ * <p>
+ * A cached provider's instance can expire after <code>ttl</code> milliseconds. With
+ * <code>refreshAhead</code> an expired instance keeps being returned while a new one is created
+ * on the {@link Injector#getExecutor() injector's executor}. The <code>reference</code> attribute
+ * lets the garbage collector drop the cached instance, see {@link CacheReference}.
+ * <p>
+ * A non-cached provider with a <code>pool</code> size reuses instances returned using
+ * {@link Provider#release(Object)} or a {@link Lease}, keeping up to that many idle instances.
+ * Returned instances are checked by the optional <code>poolValidator</code>, a {@link Predicate}
+ * class with a no-argument constructor, and dropped if it rejects them.
  *
  * <p>Example usage:
  *
@@ -47,6 +60,11 @@ import java.lang.annotation.Target;
  *     	...
  *     };
  *     
+ *     <b>@Bind(cache = true, ttl = 60000, refreshAhead = true)</b>
+ *     FuelPrices fuelPrices() {
+ *     	...
+ *     };
+ *     
  *     <b>@Bind(cache = true)</b>
  *     Car transporter(<b>@Bind</b> Engine engine, <b>@Bind("driver")</b> Seat seat1, <b>@Bind("passengerSeat")</b> Seat seat2) {
  *     	...
@@ -59,4 +77,11 @@ import java.lang.annotation.Target;
 public @interface Bind {
 	String value() default "";
 	boolean cache() default false;
+	Class<? extends Scope> scope() default Scope.class;
+	long ttl() default 0;
+	boolean refreshAhead() default false;
+	CacheReference reference() default CacheReference.STRONG;
+	int pool() default 0;
+	@SuppressWarnings("rawtypes")
+	Class<? extends Predicate> poolValidator() default Predicate.class;
 }
\ No newline at end of file
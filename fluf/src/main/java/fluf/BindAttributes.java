@@ -0,0 +1,99 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * {@link Bind} implementation holding attribute values given as name and value pairs.
+ * Attributes that are not given have the annotation's default values. Used by
+ * providers that are not created from an actual annotated method.
+ */
+class BindAttributes implements Bind {
+
+	private final Map<String, Object> values = new HashMap<String, Object>();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param attributes attribute names followed by their values
+	 */
+	BindAttributes(Object...attributes) {
+		if (attributes.length % 2 != 0) {
+			throw new IllegalArgumentException("Attributes must be given as name and value pairs");
+		}
+		for (int i = 0; i < attributes.length; i += 2) {
+			values.put((String) attributes[i], attributes[i + 1]);
+		}
+	}
+
+	@Override
+	public String value() {
+		return get("value", "");
+	}
+
+	@Override
+	public boolean cache() {
+		return get("cache", false);
+	}
+
+	@Override
+	public Class<? extends Scope> scope() {
+		return get("scope", Scope.class);
+	}
+
+	@Override
+	public long ttl() {
+		return get("ttl", 0L);
+	}
+
+	@Override
+	public boolean refreshAhead() {
+		return get("refreshAhead", false);
+	}
+
+	@Override
+	public CacheReference reference() {
+		return get("reference", CacheReference.STRONG);
+	}
+
+	@Override
+	public int pool() {
+		return get("pool", 0);
+	}
+
+	// raw like Bind.poolValidator(), an annotation default can't be a Class<? extends Predicate<?>>
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Class<? extends Predicate> poolValidator() {
+		return get("poolValidator", Predicate.class);
+	}
+
+	@Override
+	public Class<? extends Annotation> annotationType() {
+		return Bind.class;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <V> V get(String name, V defaultValue) {
+		Object value = values.get(name);
+		return (value == null ? defaultValue : (V) value);
+	}
+}
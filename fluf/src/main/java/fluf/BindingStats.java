@@ -0,0 +1,102 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Snapshot of a binding's counters recorded by {@link InjectorMetrics}.
+ * 
+ * @see InjectorMetrics#getStats(Provider)
+ */
+public final class BindingStats {
+
+	private final long provisions;
+	private final LatencyStats provisionLatency;
+	private final long cacheHits;
+	private final long cacheMisses;
+	private final long lookups;
+	private final long proxyCalls;
+
+	BindingStats(long provisions, LatencyStats provisionLatency, long cacheHits, long cacheMisses,
+			long lookups, long proxyCalls) {
+		this.provisions = provisions;
+		this.provisionLatency = provisionLatency;
+		this.cacheHits = cacheHits;
+		this.cacheMisses = cacheMisses;
+		this.lookups = lookups;
+		this.proxyCalls = proxyCalls;
+	}
+
+	/**
+	 * Returns the number of instances the provider created.
+	 * 
+	 * @return provision count
+	 */
+	public long getProvisions() {
+		return provisions;
+	}
+
+	/**
+	 * Returns the durations of creating instances, without resolving dependencies.
+	 * 
+	 * @return provision latency
+	 */
+	public LatencyStats getProvisionLatency() {
+		return provisionLatency;
+	}
+
+	/**
+	 * Returns the number of times a cached provider returned its existing instance.
+	 * 
+	 * @return hit count
+	 */
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * Returns the number of times a cached provider had to create its instance.
+	 * 
+	 * @return miss count
+	 */
+	public long getCacheMisses() {
+		return cacheMisses;
+	}
+
+	/**
+	 * Returns the number of lookups that found the provider.
+	 * 
+	 * @return lookup count
+	 */
+	public long getLookups() {
+		return lookups;
+	}
+
+	/**
+	 * Returns the number of proxy and generated factory method calls bound to the provider.
+	 * 
+	 * @return proxy call count
+	 */
+	public long getProxyCalls() {
+		return proxyCalls;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BindingStats[provisions: %d, cacheHits: %d, cacheMisses: %d, lookups: %d, proxyCalls: %d, latency: %s]",
+				provisions, cacheHits, cacheMisses, lookups, proxyCalls, provisionLatency);
+	}
+}
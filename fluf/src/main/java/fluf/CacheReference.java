@@ -0,0 +1,34 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * How a cached provider references its cached instance.
+ * 
+ * @see Bind#reference()
+ */
+public enum CacheReference {
+
+	/** The instance is kept until it expires. */
+	STRONG,
+
+	/** The instance can be dropped by the garbage collector when memory runs low. */
+	SOFT,
+
+	/** The instance is dropped by the garbage collector as soon as nothing else references it. */
+	WEAK
+}
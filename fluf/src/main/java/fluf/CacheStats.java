@@ -0,0 +1,91 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Snapshot of a cached {@link Provider}'s cache counters.
+ * 
+ * @see Provider#getCacheStats()
+ */
+public final class CacheStats {
+
+	private final long hits;
+	private final long misses;
+	private final long refreshes;
+	private final long refreshFailures;
+	private final long evictions;
+
+	CacheStats(long hits, long misses, long refreshes, long refreshFailures, long evictions) {
+		this.hits = hits;
+		this.misses = misses;
+		this.refreshes = refreshes;
+		this.refreshFailures = refreshFailures;
+		this.evictions = evictions;
+	}
+
+	/**
+	 * Returns the number of {@link Provider#get()} calls that returned a cached instance,
+	 * including stale instances returned while being refreshed.
+	 * 
+	 * @return hit count
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of {@link Provider#get()} calls that created a new instance.
+	 * 
+	 * @return miss count
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of instances created by background refreshes.
+	 * 
+	 * @return refresh count
+	 */
+	public long getRefreshes() {
+		return refreshes;
+	}
+
+	/**
+	 * Returns the number of background refreshes that failed and kept the stale instance.
+	 * 
+	 * @return failed refresh count
+	 */
+	public long getRefreshFailures() {
+		return refreshFailures;
+	}
+
+	/**
+	 * Returns the number of instances that expired or were dropped by the garbage collector.
+	 * 
+	 * @return eviction count
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CacheStats[hits: %d, misses: %d, refreshes: %d, refreshFailures: %d, evictions: %d]",
+				hits, misses, refreshes, refreshFailures, evictions);
+	}
+}
@@ -0,0 +1,57 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * {@link Scope} holding instances in a {@link ScopeContext} that is looked up on every
+ * {@link Provider#get()} call. Implementations decide where the current context comes from.
+ * On Java versions that have {@code java.lang.ScopedValue} a context can be bound to a
+ * block of code, including virtual threads it forks, without any per-thread state:
+ * 
+ * <pre>
+ *   public class JobScope extends ContextScope {
+ *   
+ *     static final ScopedValue&lt;ScopeContext&gt; CONTEXT = ScopedValue.newInstance();
+ *     
+ *     protected ScopeContext currentContext() {
+ *       return CONTEXT.orElse(null);
+ *     }
+ *   }
+ *   
+ *   ScopedValue.where(JobScope.CONTEXT, new ScopeContext()).run(job);</pre>
+ * 
+ * @see RequestScope
+ */
+public abstract class ContextScope extends Scope {
+
+	/**
+	 * Returns the current context of this scope.
+	 * 
+	 * @return the current context or null if the scope is not active
+	 */
+	protected abstract ScopeContext currentContext();
+
+	@Override
+	protected final <T> T get(Provider<T> provider) {
+		final ScopeContext context = currentContext();
+		if (context == null) {
+			throw new RuntimeException(String.format(
+					"%s is not active, cannot provide %s", getClass().getSimpleName(), provider));
+		}
+		return context.get(provider);
+	}
+}
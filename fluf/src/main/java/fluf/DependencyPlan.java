@@ -0,0 +1,506 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Resolution plan of a {@link Provider}'s dependencies. A plan is linked once against
+ * the bindings of the provider's {@link Injector} and then reused by every
+ * {@link Provider#get()} call until the injector's bindings change, so resolving
+ * dependency values does not have to search for providers again.
+ */
+class DependencyPlan {
+
+	/** Version of the injector's bindings this plan was linked against. */
+	private final int version;
+
+	/** Linked dependencies in the order of the provider's dependency types. */
+	private final Dependency[] dependencies;
+
+	/** Set once no provider this plan calls depends on the plan's provider. */
+	private volatile boolean acyclic;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param version version of the bindings the plan was linked against
+	 * @param dependencies the linked dependencies
+	 */
+	DependencyPlan(int version, Dependency[] dependencies) {
+		this.version = version;
+		this.dependencies = dependencies;
+	}
+
+	/**
+	 * Returns true if this plan was linked against the current bindings of the given {@link Injector}.
+	 * 
+	 * @param injector the injector
+	 * @return true if the plan is up to date
+	 */
+	boolean isLinkedTo(Injector injector) {
+		return this.version == injector.getVersion();
+	}
+
+	/**
+	 * Returns true if the plan was checked for dependency cycles and none were found.
+	 * 
+	 * @return true if the plan is acyclic
+	 */
+	boolean isAcyclic() {
+		return this.acyclic;
+	}
+
+	/**
+	 * Marks the plan as checked for dependency cycles.
+	 */
+	void markAcyclic() {
+		this.acyclic = true;
+	}
+
+	/**
+	 * Resolves values of all dependencies.
+	 * 
+	 * @return array of dependency values
+	 */
+	Object[] resolve() {
+		final Dependency[] deps = this.dependencies;
+		final Object[] values = new Object[deps.length];
+		for (int i = 0; i < deps.length; i++) {
+			values[i] = deps[i].resolve();
+		}
+		return values;
+	}
+
+	/**
+	 * Resolves values of all dependencies for one of several instances created together.
+	 * Values of {@link Dependency#isShared() shared} dependencies are taken from the values
+	 * resolved for the previous instance instead of being resolved again.
+	 * 
+	 * @param previous values this plan resolved for the previous instance, null for the first one
+	 * @return array of dependency values
+	 */
+	Object[] resolve(Object[] previous) {
+		if (previous == null) {
+			return resolve();
+		}
+		final Dependency[] deps = this.dependencies;
+		final Object[] values = new Object[deps.length];
+		for (int i = 0; i < deps.length; i++) {
+			values[i] = (deps[i].isShared() ? previous[i] : deps[i].resolve());
+		}
+		return values;
+	}
+
+	/**
+	 * Resolves values of all dependencies asynchronously. Dependencies are resolved
+	 * concurrently using {@link Provider#getAsync()}.
+	 * 
+	 * @return future of the array of dependency values
+	 */
+	CompletableFuture<Object[]> resolveAsync() {
+		final Dependency[] deps = this.dependencies;
+		final CompletableFuture<?>[] futures = new CompletableFuture<?>[deps.length];
+		for (int i = 0; i < deps.length; i++) {
+			futures[i] = deps[i].resolveAsync();
+		}
+		return CompletableFuture.allOf(futures).thenApply(new Function<Void, Object[]>() {
+			@Override
+			public Object[] apply(Void done) {
+				final Object[] values = new Object[futures.length];
+				for (int i = 0; i < futures.length; i++) {
+					values[i] = futures[i].join();
+				}
+				return values;
+			}
+		});
+	}
+
+	/**
+	 * Returns the providers called when this plan is resolved.
+	 * 
+	 * @return list of providers
+	 */
+	@SuppressWarnings("rawtypes")
+	List<Provider> getProviders() {
+		final List<Provider> providers = new ArrayList<Provider>();
+		for (Dependency dependency : this.dependencies) {
+			dependency.collectProviders(providers);
+		}
+		return providers;
+	}
+
+	/**
+	 * A single linked dependency.
+	 */
+	static abstract class Dependency {
+
+		/**
+		 * Returns the value to be used for this dependency.
+		 * 
+		 * @return dependency value
+		 */
+		abstract Object resolve();
+
+		/**
+		 * Returns a future of the value to be used for this dependency. By default the
+		 * value is resolved synchronously.
+		 * 
+		 * @return future dependency value
+		 */
+		CompletableFuture<?> resolveAsync() {
+			try {
+				return CompletableFuture.completedFuture(resolve());
+			} catch (RuntimeException e) {
+				return Provider.failedFuture(e);
+			}
+		}
+
+		/**
+		 * Adds the providers called when resolving this dependency to the given collection.
+		 * 
+		 * @param providers collection to add the providers to
+		 */
+		@SuppressWarnings("rawtypes")
+		void collectProviders(Collection<Provider> providers) {
+		}
+
+		/**
+		 * Returns true if every resolution returns the same value, so a value can be reused
+		 * for several instances created together.
+		 * 
+		 * @return true if the value never changes
+		 */
+		boolean isShared() {
+			return false;
+		}
+	}
+
+	/**
+	 * Dependency whose value never changes, like the {@link Injector} itself or
+	 * an injected {@link Provider}.
+	 */
+	static class ConstantDependency extends Dependency {
+
+		private final Object value;
+
+		ConstantDependency(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		Object resolve() {
+			return value;
+		}
+
+		@Override
+		boolean isShared() {
+			return true;
+		}
+	}
+
+	/**
+	 * Dependency resolved from a single provider.
+	 */
+	static class InstanceDependency extends Dependency {
+
+		@SuppressWarnings("rawtypes")
+		private final Provider provider;
+
+		@SuppressWarnings("rawtypes")
+		InstanceDependency(Provider provider) {
+			this.provider = provider;
+		}
+
+		@Override
+		Object resolve() {
+			return provider.get();
+		}
+
+		@Override
+		CompletableFuture<?> resolveAsync() {
+			return provider.getAsync();
+		}
+
+		@Override
+		boolean isShared() {
+			return provider.isSingleton();
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		void collectProviders(Collection<Provider> providers) {
+			providers.add(provider);
+		}
+	}
+
+	/**
+	 * Dependency on a type resolved from a provider of a {@link CompletableFuture} of that type.
+	 */
+	static class FutureDependency extends Dependency {
+
+		private final Provider<?> provider;
+
+		FutureDependency(Provider<?> provider) {
+			this.provider = provider;
+		}
+
+		@Override
+		Object resolve() {
+			return ((CompletableFuture<?>) provider.get()).join();
+		}
+
+		@Override
+		CompletableFuture<?> resolveAsync() {
+			return Provider.flatten(provider.getAsync());
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		void collectProviders(Collection<Provider> providers) {
+			providers.add(provider);
+		}
+	}
+
+	/**
+	 * Dependency on a {@link CompletableFuture} of a type resolved from a provider of that type.
+	 * The dependent provider gets the future without waiting for it, so the provider is not
+	 * reported by {@link #collectProviders(Collection)}.
+	 */
+	static class AsyncDependency extends Dependency {
+
+		private final Provider<?> provider;
+
+		AsyncDependency(Provider<?> provider) {
+			this.provider = provider;
+		}
+
+		@Override
+		Object resolve() {
+			return provider.getAsync();
+		}
+	}
+
+	/**
+	 * {@link Lazy} dependency. The provider is looked up when the first {@link Lazy} created
+	 * by this dependency is used and then shared by all of them, so it is not reported by
+	 * {@link #collectProviders(Collection)}.
+	 */
+	static class LazyDependency extends Dependency {
+
+		private final Injector injector;
+
+		private final Key<?> key;
+
+		/** Provider the dependency belongs to, which can't provide its own dependency. */
+		private final Provider<?> dependent;
+
+		private volatile Provider<?> provider;
+
+		LazyDependency(Injector injector, Key<?> key, Provider<?> dependent) {
+			this.injector = injector;
+			this.key = key;
+			this.dependent = dependent;
+		}
+
+		@Override
+		Object resolve() {
+			return new Lazy<Object>(this);
+		}
+
+		/**
+		 * Returns the provider of the lazy instances, looking it up on first use.
+		 * 
+		 * @return the provider
+		 * @throws NullPointerException if there is no matching provider
+		 */
+		Provider<?> getProvider() {
+			Provider<?> current = this.provider;
+			if (current == null) {
+				current = injector.find(key, null);
+				current = (current == dependent ? null : current);
+				Provider.checkNotNull(current, String.format("Provider[type: %s, name: %s] ", key.getType(), key.getName()));
+				this.provider = current;
+			}
+			return current;
+		}
+
+		@Override
+		public String toString() {
+			return key.toString();
+		}
+	}
+
+	/**
+	 * Collection dependency resolved from all matching providers, in binding order.
+	 * Resolved to a {@link LinkedHashSet} or, for {@link List} dependencies, to a list
+	 * which keeps equal instances and doesn't call their {@link Object#hashCode()}.
+	 */
+	static class CollectionDependency extends Dependency {
+
+		@SuppressWarnings("rawtypes")
+		private final Provider[] providers;
+
+		private final boolean list;
+
+		@SuppressWarnings("rawtypes")
+		CollectionDependency(Collection<Provider> providers, boolean list) {
+			this.providers = providers.toArray(new Provider[providers.size()]);
+			this.list = list;
+		}
+
+		@Override
+		Object resolve() {
+			final Collection<Object> all = newCollection();
+			for (Provider<?> mp : providers) {
+				all.add(mp.get());
+			}
+			return all;
+		}
+
+		@Override
+		CompletableFuture<?> resolveAsync() {
+			final CompletableFuture<?>[] futures = new CompletableFuture<?>[providers.length];
+			for (int i = 0; i < providers.length; i++) {
+				futures[i] = providers[i].getAsync();
+			}
+			return CompletableFuture.allOf(futures).thenApply(new Function<Void, Object>() {
+				@Override
+				public Object apply(Void done) {
+					final Collection<Object> all = newCollection();
+					for (CompletableFuture<?> future : futures) {
+						all.add(future.join());
+					}
+					return all;
+				}
+			});
+		}
+
+		private Collection<Object> newCollection() {
+			return (list ? new ArrayList<Object>(providers.length) : new LinkedHashSet<Object>());
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		void collectProviders(Collection<Provider> providers) {
+			for (Provider provider : this.providers) {
+				providers.add(provider);
+			}
+		}
+	}
+
+	/**
+	 * {@link Stream} dependency resolved to a new stream of the matching providers' instances,
+	 * or of the providers themselves, every time. Instances are created as the stream is
+	 * consumed, in parallel if the stream is made parallel, so the providers are not
+	 * reported by {@link #collectProviders(Collection)}.
+	 */
+	static class StreamDependency extends Dependency {
+
+		@SuppressWarnings("rawtypes")
+		private final Provider[] providers;
+
+		private final boolean ofProviders;
+
+		@SuppressWarnings("rawtypes")
+		StreamDependency(Collection<Provider> providers, boolean ofProviders) {
+			this.providers = providers.toArray(new Provider[providers.size()]);
+			this.ofProviders = ofProviders;
+		}
+
+		@Override
+		Object resolve() {
+			return (ofProviders ? Arrays.<Object>stream(providers) : stream(providers));
+		}
+	}
+
+	/** Creates an instance using the given provider. */
+	private static final Function<Object, Object> GET = new Function<Object, Object>() {
+		@Override
+		public Object apply(Object provider) {
+			return ((Provider<?>) provider).get();
+		}
+	};
+
+	/**
+	 * Returns a stream of instances created by the given providers as the stream is consumed.
+	 * 
+	 * @param providers the providers
+	 * @return stream of instances in the order of the providers
+	 */
+	@SuppressWarnings("rawtypes")
+	static Stream<Object> stream(Provider[] providers) {
+		return Arrays.<Object>stream(providers).map(GET);
+	}
+
+	/**
+	 * {@link Iterable} of instances created by the matching providers as they are iterated.
+	 * Every iteration gets a new instance from providers that are not cached.
+	 */
+	static final class LazyValues implements Iterable<Object> {
+
+		@SuppressWarnings("rawtypes")
+		private final Provider[] providers;
+
+		@SuppressWarnings("rawtypes")
+		LazyValues(Collection<Provider> providers) {
+			this.providers = providers.toArray(new Provider[providers.size()]);
+		}
+
+		@Override
+		public Iterator<Object> iterator() {
+			return new Iterator<Object>() {
+
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < providers.length;
+				}
+
+				@Override
+				public Object next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return providers[next++].get();
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<Object> spliterator() {
+			// splits like an array so that StreamSupport.stream(values.spliterator(), true) runs in parallel
+			return stream(providers).spliterator();
+		}
+
+		@Override
+		public String toString() {
+			return "LazyValues" + Arrays.toString(providers);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Type;
+
+/**
+ * Emits Java Flight Recorder events of injector creation, module configuration, provisions
+ * and slow lookups. This implementation does nothing, {@link #INSTANCE} is a
+ * {@code FlightRecorderEvents} if the JDK has the {@code jdk.jfr} API.
+ * <p>
+ * Every {@code begin} method returns an event to pass to the matching {@code end} method,
+ * or null if the event is not recorded.
+ */
+class EventRecorder {
+
+	/** The recorder used by all injectors. */
+	static final EventRecorder INSTANCE = load();
+
+	Object beginInjectorCreation() {
+		return null;
+	}
+
+	void endInjectorCreation(Object event, Injector injector, int modules) {
+	}
+
+	Object beginModuleConfiguration() {
+		return null;
+	}
+
+	void endModuleConfiguration(Object event, Module module, int providers) {
+	}
+
+	Object beginProvision() {
+		return null;
+	}
+
+	void endProvision(Object event, Provider<?> provider) {
+	}
+
+	Object beginLookup() {
+		return null;
+	}
+
+	void endLookup(Object event, Type type, String name, Provider<?> provider) {
+	}
+
+	private static EventRecorder load() {
+		try {
+			Class.forName("jdk.jfr.Event", false, EventRecorder.class.getClassLoader());
+			return (EventRecorder) Class.forName("fluf.FlightRecorderEvents").getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			return new EventRecorder();
+		} catch (LinkageError e) {
+			return new EventRecorder();
+		}
+	}
+}
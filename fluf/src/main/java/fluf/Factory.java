@@ -0,0 +1,44 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an assisted injection factory interface for which the {@code fluf-processor}
+ * annotation processor should generate an implementation class at compile time.
+ * {@link Fluf#createProxy(Class, Injector, Module...)} returns an instance of the
+ * generated class instead of a dynamic proxy whenever one is present. Methods are
+ * bound to providers exactly as they are for dynamic proxies.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ *   <b>@Factory</b>
+ *   public interface BikeFactory {
+ *     Bike makeMeABike(Color color);
+ *   }</pre>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Factory {
+}
@@ -0,0 +1,187 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Type;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * {@link EventRecorder} emitting {@code jdk.jfr} events. Only loaded if the JDK has
+ * Flight Recorder. Events are only allocated if their type is enabled in a running
+ * recording, and only filled in if they should be committed.
+ */
+final class FlightRecorderEvents extends EventRecorder {
+
+	private static final EventType INJECTOR_CREATION = EventType.getEventType(InjectorCreation.class);
+
+	private static final EventType MODULE_CONFIGURATION = EventType.getEventType(ModuleConfiguration.class);
+
+	private static final EventType PROVISION = EventType.getEventType(Provision.class);
+
+	private static final EventType LOOKUP = EventType.getEventType(Lookup.class);
+
+	@Override
+	Object beginInjectorCreation() {
+		return (INJECTOR_CREATION.isEnabled() ? begin(new InjectorCreation()) : null);
+	}
+
+	@Override
+	void endInjectorCreation(Object event, Injector injector, int modules) {
+		final InjectorCreation e = (InjectorCreation) end(event);
+		if (e != null) {
+			e.modules = modules;
+			e.providers = injector.getProviders().size();
+			e.extending = (injector.getParent() != null);
+			e.commit();
+		}
+	}
+
+	@Override
+	Object beginModuleConfiguration() {
+		return (MODULE_CONFIGURATION.isEnabled() ? begin(new ModuleConfiguration()) : null);
+	}
+
+	@Override
+	void endModuleConfiguration(Object event, Module module, int providers) {
+		final ModuleConfiguration e = (ModuleConfiguration) end(event);
+		if (e != null) {
+			e.module = module.getClass();
+			e.providers = providers;
+			e.commit();
+		}
+	}
+
+	@Override
+	Object beginProvision() {
+		return (PROVISION.isEnabled() ? begin(new Provision()) : null);
+	}
+
+	@Override
+	void endProvision(Object event, Provider<?> provider) {
+		final Provision e = (Provision) end(event);
+		if (e != null) {
+			e.binding = provider.getName();
+			e.type = provider.getType().getTypeName();
+			e.cached = provider.isCached();
+			e.commit();
+		}
+	}
+
+	@Override
+	Object beginLookup() {
+		return (LOOKUP.isEnabled() ? begin(new Lookup()) : null);
+	}
+
+	@Override
+	void endLookup(Object event, Type type, String name, Provider<?> provider) {
+		final Lookup e = (Lookup) end(event);
+		if (e != null) {
+			e.type = (type == null ? null : type.getTypeName());
+			e.name = name;
+			e.binding = (provider == null ? null : provider.getName());
+			e.commit();
+		}
+	}
+
+	private static Event begin(Event event) {
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Ends the event and returns it if it should be committed, null otherwise.
+	 */
+	private static Event end(Object event) {
+		if (event == null) {
+			return null;
+		}
+		final Event e = (Event) event;
+		e.end();
+		return (e.shouldCommit() ? e : null);
+	}
+
+	@Name("fluf.InjectorCreation")
+	@Label("Injector Creation")
+	@Category("Fluf")
+	@Description("Creation of an injector including the configuration of its modules")
+	static final class InjectorCreation extends Event {
+
+		@Label("Modules")
+		int modules;
+
+		@Label("Providers")
+		int providers;
+
+		@Label("Extending")
+		@Description("Whether the injector extends another injector")
+		boolean extending;
+	}
+
+	@Name("fluf.ModuleConfiguration")
+	@Label("Module Configuration")
+	@Category("Fluf")
+	@Description("Binding of a module's providers")
+	static final class ModuleConfiguration extends Event {
+
+		@Label("Module")
+		Class<?> module;
+
+		@Label("Providers")
+		int providers;
+	}
+
+	@Name("fluf.Provision")
+	@Label("Provision")
+	@Category("Fluf")
+	@Description("Invocation of a provider creating an instance, without resolving its dependencies")
+	static final class Provision extends Event {
+
+		@Label("Binding")
+		String binding;
+
+		@Label("Type")
+		String type;
+
+		@Label("Cached")
+		boolean cached;
+	}
+
+	@Name("fluf.Lookup")
+	@Label("Slow Lookup")
+	@Category("Fluf")
+	@Description("Provider lookup by type, name or dependency types")
+	@Threshold("1 ms")
+	static final class Lookup extends Event {
+
+		@Label("Type")
+		String type;
+
+		@Label("Name")
+		String name;
+
+		@Label("Binding")
+		@Description("Name of the found provider")
+		String binding;
+	}
+}
@@ -18,8 +18,16 @@ package fluf;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 /**
  * The entry point to the framework. Creates {@link Injector}s from
@@ -38,8 +46,44 @@ public class Fluf implements InvocationHandler {
 	}
 
 	/**
-	 * Creates a dynamic proxy backed by provided {@link Injector}. If any additional
+	 * Creates an {@link Injector} from given {@link Module}s and eagerly initializes its cached
+	 * providers on the given executor, independent providers in parallel.
+	 * Use {@link Injector#initializeSingletons(Executor)} directly to get initialization times.
+	 * 
+	 * @param executor executor to initialize cached providers on
+	 * @param modules the injector's modules
+	 * @return the injector instance
+	 */
+	public static Injector createInjector(Executor executor, Module...modules) {
+		final Injector injector = new Injector(modules);
+		injector.initializeSingletons(executor);
+		return injector;
+	}
+
+	/**
+	 * Creates an {@link Injector} from given {@link Module}s whose provisions, lookups and proxy
+	 * calls are reported to the given listener. Injectors extending it report to the same listener.
+	 * 
+	 * @see InjectorMetrics
+	 * 
+	 * @param listener the listener
+	 * @param modules the injector's modules
+	 * @return the injector instance
+	 */
+	public static Injector createInjector(InjectorListener listener, Module...modules) {
+		return new Injector(Provider.checkNotNull(listener, "listener"), modules);
+	}
+
+	/**
+	 * Creates a dynamic proxy backed by provided {@link Injector}. If the interface is
+	 * annotated with {@link Factory} and has a generated implementation, an instance of that
+	 * implementation is returned instead of a dynamic proxy. If any additional
 	 * {@link Module}s are given, then the given injector is extended using those modules.
+	 * <p>
+	 * A method returning a {@code List<T>} whose first argument is an {@code int} count
+	 * creates a batch of that many instances using the provider of {@code T} bound to the
+	 * method, unless a provider of the list itself is bound to it. The remaining arguments
+	 * are used for every instance.
 	 * 
 	 * @see Injector#extendWith(Module...)
 	 * 
@@ -54,7 +98,7 @@ public class Fluf implements InvocationHandler {
 		if (modules.length > 0){
 			injector = injector.extendWith(modules);
 		}
-		return new Fluf(injector).asProxy(interfaceClass);
+		return proxy(interfaceClass, injector);
 	}
 	
 	/**
@@ -67,11 +111,27 @@ public class Fluf implements InvocationHandler {
 	 * @return proxy instance
 	 */
 	public static <T> T createProxy(Class<T> interfaceClass, Module...modules) {
-		return new Fluf(new Injector(modules)).asProxy(interfaceClass);
+		return proxy(interfaceClass, new Injector(modules));
+	}
+
+	/**
+	 * Returns an instance of the interface's {@link GeneratedFactory} if there is one,
+	 * otherwise a dynamic proxy. Methods of proxies for a frozen {@link Injector} are linked
+	 * when the proxy is created.
+	 */
+	private static <T> T proxy(Class<T> interfaceClass, Injector injector) {
+		if (injector.isFrozen()) {
+			link(interfaceClass, injector);
+		}
+		final T factory = GeneratedFactory.create(interfaceClass, injector);
+		return (factory != null ? factory : new Fluf(injector).asProxy(interfaceClass));
 	}
 
 	/** Injector used by this proxy. */
 	private final Injector injector;
+
+	/** Providers already resolved for the proxy's methods. */
+	private final ConcurrentMap<Method, Dispatch> dispatches = new ConcurrentHashMap<Method, Dispatch>();
 	
 	/**
 	 * Constructor.
@@ -95,16 +155,159 @@ public class Fluf implements InvocationHandler {
 
 	@Override
 	public Object invoke(Object instance, Method method, Object[] argValues) throws Throwable {
+		if (method.getDeclaringClass() == Object.class) {
+			return invokeObjectMethod(instance, method, argValues);
+		}
+		return dispatch(method).invoke(argValues);
+	}
+
+	/**
+	 * Returns the provider bound to the given proxy method. Providers are resolved once
+	 * and resolved again only if the injector's bindings change.
+	 * 
+	 * @param method the proxy method
+	 * @return the provider
+	 */
+	private Dispatch dispatch(Method method) {
+		final int version = injector.getVersion();
+		Dispatch dispatch = dispatches.get(method);
+		if (dispatch == null || dispatch.version != version) {
+			dispatch = resolve(injector, version, method);
+			dispatches.put(method, dispatch);
+		}
+		return dispatch;
+	}
+
+	/**
+	 * Resolves providers of all the interface's methods, reporting all unresolved methods together.
+	 */
+	private static void link(Class<?> interfaceClass, Injector injector) {
+		final List<String> errors = new ArrayList<String>();
+		for (Method method : interfaceClass.getMethods()) {
+			if (Modifier.isAbstract(method.getModifiers())) {
+				try {
+					resolve(injector, injector.getVersion(), method);
+				} catch (RuntimeException e) {
+					errors.add(String.format("%s\n  %s", method, e.getMessage()));
+				}
+			}
+		}
+		Injector.checkErrors(interfaceClass.getName(), errors);
+	}
+
+	private static Dispatch resolve(Injector injector, int version, Method method) {
 		final String boundName = method.isAnnotationPresent(Bind.class) ?
 				method.getAnnotation(Bind.class).value() : null;
 		final String name = (boundName == null  || boundName.length() == 0 ? method.getName() : boundName);
-		final Type returnType = method.getGenericReturnType();
-		final Type[] arguments = method.getGenericParameterTypes();
-		final Provider<?> provider = injector.find(returnType, name, arguments);
-		if (provider == null) {
-			throw new RuntimeException(String.format("Method not found. %s %s (%s)", returnType, name, arrayToString(arguments)));
+		return resolve(injector, version, Key.get(method.getGenericReturnType(), name), method.getGenericParameterTypes());
+	}
+
+	/**
+	 * Finds the provider bound to a factory method. A method returning a {@link List}
+	 * whose first argument is an {@code int} count and that has no provider of the list
+	 * bound to it creates batches using the provider of the list's element type.
+	 * 
+	 * @param injector the injector to search in
+	 * @param version the injector's bindings version
+	 * @param key the method's return type and the provider name the method is bound to
+	 * @param arguments the method's argument types
+	 * @return the dispatch to the provider
+	 * @throws RuntimeException if there is no matching provider
+	 */
+	static Dispatch resolve(Injector injector, int version, Key<?> key, Type[] arguments) {
+		final Provider<?> provider = injector.find(key, arguments);
+		if (provider != null) {
+			return new Dispatch(version, provider, false);
+		}
+		final Type type = key.getType();
+		if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class
+				&& arguments != null && arguments.length > 0 && arguments[0] == int.class) {
+			final Provider<?> element = injector.find(
+					Key.get(((ParameterizedType) type).getActualTypeArguments()[0], key.getName()),
+					Arrays.copyOfRange(arguments, 1, arguments.length));
+			if (element != null) {
+				return new Dispatch(version, element, true);
+			}
+		}
+		throw new RuntimeException(String.format("Method not found. %s %s (%s)",
+				type.getTypeName(), key.getName(), arrayToString(arguments)));
+	}
+
+	/**
+	 * Handles {@link Object} methods of the proxy instead of looking them up in the injector.
+	 */
+	private Object invokeObjectMethod(Object instance, Method method, Object[] argValues) {
+		final String name = method.getName();
+		if (name.equals("equals")) {
+			return instance == argValues[0];
+		} else if (name.equals("hashCode")) {
+			return System.identityHashCode(instance);
+		} else if (name.equals("toString")) {
+			return "Proxy" + Arrays.toString(instance.getClass().getInterfaces())
+					+ "@" + Integer.toHexString(System.identityHashCode(instance));
+		}
+		throw new UnsupportedOperationException(method.toString());
+	}
+
+	/**
+	 * Provider resolved for a proxy method and the bindings version it was resolved with.
+	 */
+	static final class Dispatch {
+
+		final int version;
+
+		final Provider<?> provider;
+
+		/** True if the method's first argument is the number of instances to create. */
+		final boolean batch;
+
+		Dispatch(int version, Provider<?> provider, boolean batch) {
+			this.version = version;
+			this.provider = provider;
+			this.batch = batch;
+		}
+
+		/**
+		 * Invokes the provider with the proxy method's argument values.
+		 * 
+		 * @param argValues the argument values, null if the method has no arguments
+		 * @return the provided instance or list of instances of a batch
+		 */
+		Object invoke(Object[] argValues) {
+			if (!batch) {
+				return provider.provideForProxy(argValues);
+			}
+			return provider.provideManyForProxy((Integer) argValues[0], Arrays.copyOfRange(argValues, 1, argValues.length));
+		}
+
+		/**
+		 * Invokes the provider with the single argument value of a generated factory method.
+		 * Batches get their arguments in an array, which is amortized over the batch.
+		 * 
+		 * @param arg0 the argument value
+		 * @return the provided instance or list of instances of a batch
+		 */
+		Object invoke(Object arg0) {
+			return (batch ? invoke(new Object[] { arg0 }) : provider.provideForProxy(arg0));
+		}
+
+		/**
+		 * Invokes the provider with the argument values of a generated factory method.
+		 * 
+		 * @see #invoke(Object)
+		 */
+		Object invoke(Object arg0, Object arg1) {
+			return (batch ? invoke(new Object[] { arg0, arg1 }) : provider.provideForProxy(arg0, arg1));
+		}
+
+		/**
+		 * Invokes the provider with the argument values of a generated factory method.
+		 * 
+		 * @see #invoke(Object)
+		 */
+		Object invoke(Object arg0, Object arg1, Object arg2) {
+			return (batch ? invoke(new Object[] { arg0, arg1, arg2 }) : provider.provideForProxy(arg0, arg1, arg2));
 		}
-		return provider.get(argValues);
 	}
 
 	/**
@@ -122,6 +325,6 @@ public class Fluf implements InvocationHandler {
 		for (T i : items) {
 			sb.append(", ").append(i);
 		}
-		return sb.toString().substring(2);
+		return (sb.length() == 0 ? "" : sb.substring(2));
 	}
 }
\ No newline at end of file
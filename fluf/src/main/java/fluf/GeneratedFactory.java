@@ -0,0 +1,172 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Base class of factory implementations generated at compile time for interfaces
+ * annotated with {@link Factory}. Generated methods call {@link #invoke(int, Object)} and its
+ * overloads, which skip the dynamic proxy's {@link java.lang.reflect.Method} lookup and
+ * {@link java.lang.reflect.InvocationHandler}. Methods with up to three arguments pass them
+ * without an array down to the provider method, through the generated {@link ModuleBinder}
+ * or an unspread {@link java.lang.invoke.MethodHandle}. Only primitive arguments are boxed.
+ * Each method's provider is resolved on first use and resolved again only if the injector's
+ * bindings change.
+ * <p>
+ * The implementation of {@code com.acme.Outer.BikeFactory} is named
+ * {@code com.acme.Outer_BikeFactory_FlufFactory}.
+ */
+public abstract class GeneratedFactory {
+
+	/** Suffix of generated factory class names. */
+	public static final String SUFFIX = "_FlufFactory";
+
+	/** Placeholder for interfaces without a generated factory. */
+	private static final Object NONE = new Object();
+
+	/** Constructor of every interface's generated factory, or {@link #NONE}. */
+	private static final ClassValue<Object> FACTORIES = new ClassValue<Object>() {
+		@Override
+		protected Object computeValue(Class<?> interfaceClass) {
+			return load(interfaceClass);
+		}
+	};
+
+	/** Injector used by this factory. */
+	private final Injector injector;
+
+	/** Return types and provider names bound to the factory methods. */
+	private final Key<?>[] keys;
+
+	/** Argument types of the factory methods. */
+	private final Type[][] argumentTypes;
+
+	/** Providers already resolved for the factory methods, shared by all calling threads. */
+	private final AtomicReferenceArray<Fluf.Dispatch> dispatches;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param injector the injector for this factory to use
+	 * @param names provider names bound to the factory methods
+	 * @param returnTypes generic return types of the factory methods
+	 * @param argumentTypes generic argument types of the factory methods
+	 */
+	protected GeneratedFactory(Injector injector, String[] names, Type[] returnTypes, Type[][] argumentTypes) {
+		this.injector = Provider.checkNotNull(injector, "Injector");
+		this.keys = new Key<?>[names.length];
+		for (int i = 0; i < names.length; i++) {
+			this.keys[i] = Key.get(returnTypes[i], names[i]);
+		}
+		this.argumentTypes = argumentTypes;
+		this.dispatches = new AtomicReferenceArray<Fluf.Dispatch>(names.length);
+	}
+
+	/**
+	 * Invokes the provider bound to a factory method without arguments.
+	 * 
+	 * @param index index of the factory method
+	 * @return the provided instance
+	 */
+	protected final Object invoke(int index) {
+		return dispatch(index).invoke(null);
+	}
+
+	/**
+	 * Invokes the provider bound to a factory method with a single argument.
+	 * 
+	 * @param index index of the factory method
+	 * @param arg0 the argument value
+	 * @return the provided instance or list of instances of a batch
+	 */
+	protected final Object invoke(int index, Object arg0) {
+		return dispatch(index).invoke(arg0);
+	}
+
+	/**
+	 * Invokes the provider bound to a factory method with two arguments.
+	 * 
+	 * @see #invoke(int, Object)
+	 */
+	protected final Object invoke(int index, Object arg0, Object arg1) {
+		return dispatch(index).invoke(arg0, arg1);
+	}
+
+	/**
+	 * Invokes the provider bound to a factory method with three arguments.
+	 * 
+	 * @see #invoke(int, Object)
+	 */
+	protected final Object invoke(int index, Object arg0, Object arg1, Object arg2) {
+		return dispatch(index).invoke(arg0, arg1, arg2);
+	}
+
+	/**
+	 * Invokes the provider bound to a factory method with more than three arguments.
+	 * 
+	 * @param index index of the factory method
+	 * @param args argument values
+	 * @return the provided instance or list of instances of a batch
+	 */
+	protected final Object invoke(int index, Object[] args) {
+		return dispatch(index).invoke(args);
+	}
+
+	private Fluf.Dispatch dispatch(int index) {
+		final int version = injector.getVersion();
+		Fluf.Dispatch dispatch = dispatches.get(index);
+		if (dispatch == null || dispatch.version != version) {
+			dispatch = Fluf.resolve(injector, version, keys[index], argumentTypes[index]);
+			dispatches.set(index, dispatch);
+		}
+		return dispatch;
+	}
+
+	/**
+	 * Creates an instance of the generated factory of the given interface.
+	 * 
+	 * @param interfaceClass the factory interface
+	 * @param injector the injector for the factory to use
+	 * @return the factory or null if the interface has no generated factory
+	 */
+	static <T> T create(Class<T> interfaceClass, Injector injector) {
+		final Object constructor = FACTORIES.get(interfaceClass);
+		if (constructor == NONE) {
+			return null;
+		}
+		try {
+			return interfaceClass.cast(((Constructor<?>) constructor).newInstance(injector));
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot instantiate generated factory of " + interfaceClass, e);
+		}
+	}
+
+	private static Object load(Class<?> interfaceClass) {
+		try {
+			Class<?> factoryClass = Class.forName(ModuleBinder.generatedName(interfaceClass, SUFFIX),
+					true, interfaceClass.getClassLoader());
+			return factoryClass.getConstructor(Injector.class);
+		} catch (ClassNotFoundException e) {
+			return NONE;
+		} catch (NoSuchMethodException e) {
+			return NONE;
+		}
+	}
+}
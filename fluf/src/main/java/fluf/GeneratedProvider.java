@@ -0,0 +1,181 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Type;
+
+/**
+ * Provider of a provider method bound by a generated {@link ModuleBinder}. Unlike
+ * {@link MethodProvider} it needs no reflection, the binder supplies all type information
+ * and calls the provider method directly.
+ * 
+ * @param <T> the type of this provider
+ */
+class GeneratedProvider<T> extends Provider<T> {
+
+	/** Binder that invokes the provider method. */
+	@SuppressWarnings("rawtypes")
+	private final ModuleBinder binder;
+
+	/** The source {@link Module} of this provider. */
+	private final Module sourceModule;
+
+	/** Index of the provider method within its binder. */
+	private final int index;
+
+	/** Name of this provider. If not specified otherwise, it is the name of the provider method. */
+	private final String name;
+
+	/** Provider type. */
+	private final Type type;
+
+	/** Dependency types. */
+	private final Type[] dependencies;
+
+	/** Dependency names. */
+	private final String[] dependencyNames;
+
+	/** Provider method signature. */
+	private final String signature;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param binder the binder
+	 * @param sourceModule instance of the source {@link Module}
+	 * @param index index of the provider method within the binder
+	 * @param methodName name of the provider method
+	 * @param type generic return type of the provider method
+	 * @param dependencies generic parameter types of the provider method
+	 * @param dependencyNames names of the parameters' bindings
+	 * @param signature provider method signature
+	 * @param binding the provider method's binding attributes
+	 */
+	@SuppressWarnings("rawtypes")
+	GeneratedProvider(ModuleBinder binder, Module sourceModule, int index, String methodName, Type type,
+			Type[] dependencies, String[] dependencyNames, String signature, Bind binding) {
+		checkNotNull(sourceModule, "module instance");
+		checkNotNull(dependencies, "dependency array");
+		checkNotNull(dependencyNames, "dependency name array");
+
+		this.binder = binder;
+		this.sourceModule = sourceModule;
+		this.index = index;
+		this.type = Primitives.convertToObject(type);
+		this.dependencies = dependencies;
+		this.dependencyNames = dependencyNames;
+		this.signature = signature;
+		setInjector(sourceModule.getInjector());
+
+		final String bindingName = binding.value();
+		this.name = (bindingName == null || bindingName.length() == 0 ? methodName : bindingName);
+		setBinding(binding);
+	}
+
+	@Override
+	String getName() {
+		return name;
+	}
+
+	@Override
+	Type getType() {
+		return type;
+	}
+
+	@Override
+	Type[] getDependencies() {
+		return dependencies;
+	}
+
+	@Override
+	String getDependencyName(int i) {
+		return dependencyNames[i];
+	}
+
+	protected Module getSourceModule() {
+		return this.sourceModule;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	Object get(Object[] dependencyValues) {
+		try {
+			return binder.invoke(sourceModule, index, dependencyValues);
+		} catch (Throwable e) {
+			throw invocationError(dependencyValues, e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	Object get(Object dependency0) {
+		try {
+			return binder.invoke(sourceModule, index, dependency0);
+		} catch (Throwable e) {
+			throw invocationError(new Object[] { dependency0 }, e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	Object get(Object dependency0, Object dependency1) {
+		try {
+			return binder.invoke(sourceModule, index, dependency0, dependency1);
+		} catch (Throwable e) {
+			throw invocationError(new Object[] { dependency0, dependency1 }, e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	Object get(Object dependency0, Object dependency1, Object dependency2) {
+		try {
+			return binder.invoke(sourceModule, index, dependency0, dependency1, dependency2);
+		} catch (Throwable e) {
+			throw invocationError(new Object[] { dependency0, dependency1, dependency2 }, e);
+		}
+	}
+
+	private RuntimeException invocationError(Object[] dependencyValues, Throwable e) {
+		return new RuntimeException(
+				String.format("Error invoking method %s\nwith arguments %s", signature, Fluf.arrayToString(dependencyValues)), e);
+	}
+
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null || obj.getClass() != getClass())
+			return false;
+		@SuppressWarnings("rawtypes")
+		GeneratedProvider other = (GeneratedProvider) obj;
+		return sourceModule.equals(other.getSourceModule())
+				&& name.equals(other.name)
+				&& getType().equals(other.getType());
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder(sourceModule.getClass().toString())
+			.append("#")
+			.append(signature)
+			.toString();
+	}
+}
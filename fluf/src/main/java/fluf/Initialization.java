@@ -0,0 +1,116 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.Executor;
+
+/**
+ * Creation of a {@link Provider}'s cached result or a {@link Lazy}'s instance in progress.
+ * Initializations form a chain from the innermost one to the outermost, which follows
+ * resolution across threads: tasks started by {@link Provider#getAsync()} and {@link Lazy}
+ * instances resolved on another thread continue the chain of the thread that started them.
+ * A provider or {@link Lazy} whose running initialization is in the current chain requires
+ * itself, so waiting for it would never end.
+ */
+final class Initialization {
+
+	private static final ThreadLocal<Initialization> CURRENT = new ThreadLocal<Initialization>();
+
+	/** {@link Provider} or {@link Lazy} being initialized. */
+	private final Object target;
+
+	/** Initialization that this one is part of, null for the outermost. */
+	private final Initialization outer;
+
+	Initialization(Object target, Initialization outer) {
+		this.target = target;
+		this.outer = outer;
+	}
+
+	/**
+	 * Returns the innermost initialization the current thread is part of.
+	 * 
+	 * @return innermost initialization or null if there is none
+	 */
+	static Initialization current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Sets the innermost initialization of the current thread.
+	 * 
+	 * @param initialization innermost initialization or null if there is none
+	 */
+	static void set(Initialization initialization) {
+		if (initialization == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(initialization);
+		}
+	}
+
+	/**
+	 * Returns an {@link Executor} that runs tasks as part of the current thread's
+	 * initializations.
+	 * 
+	 * @param executor executor to run the tasks
+	 * @return the given executor if the current thread isn't initializing anything
+	 */
+	static Executor propagate(final Executor executor) {
+		final Initialization initialization = CURRENT.get();
+		if (initialization == null) {
+			return executor;
+		}
+		return new Executor() {
+			@Override
+			public void execute(final Runnable task) {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						final Initialization outer = CURRENT.get();
+						CURRENT.set(initialization);
+						try {
+							task.run();
+						} finally {
+							set(outer);
+						}
+					}
+				});
+			}
+		};
+	}
+
+	/**
+	 * Returns true if the given chain contains this initialization.
+	 * 
+	 * @param chain innermost initialization of a chain, may be null
+	 * @return true if this initialization is in the chain
+	 */
+	boolean encloses(Initialization chain) {
+		for (Initialization i = chain; i != null; i = i.outer) {
+			if (i == this) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Initialization[%s]", target);
+	}
+}
@@ -20,9 +20,17 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 /**
  * Class responsible for gathering injection bindings from modules as well as
@@ -32,33 +40,129 @@ import java.util.Set;
 @SuppressWarnings("rawtypes")
 public class Injector {
 	
-	/** Synchronized list of providers. */
-	private List<Provider> providers = Collections.synchronizedList(new ArrayList<Provider>());
+	/** Current snapshot of providers indexed by their binding type. */
+	private final AtomicReference<ProviderRegistry> registry = new AtomicReference<ProviderRegistry>(ProviderRegistry.EMPTY);
 	
+	/** The extended {@link Injector} or null if this is a root injector. */
+	private final Injector parent;
+
+	/**
+	 * Shared by a root injector and all injectors extending it, incremented whenever
+	 * a provider is added to an injector that was extended.
+	 */
+	private final AtomicInteger ancestorVersion;
+
+	/** Set once this injector is extended, from then on its bindings changes are counted by {@link #ancestorVersion}. */
+	private volatile boolean extended;
+
+	/** Executor for background work, null to use the parent's executor. */
+	private volatile Executor executor;
+
+	/** Listener notified of provisions, lookups and proxy calls or null if there is none. */
+	private final InjectorListener listener;
+
+	/** Held while a module is being configured, so its providers are published together. */
+	private final ReentrantLock installLock = new ReentrantLock();
+
+	/** Providers bound by the module being configured, only used by the thread holding the install lock. */
+	private List<Provider> binding;
+
 	/**
 	 * Constructor.
 	 * 
 	 * @param modules modules to install into this {@link Injector}
 	 */
 	Injector(Module[] modules) {
+		this(null, null, modules);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param listener listener of this {@link Injector} and the injectors extending it, can be null
+	 * @param modules modules to install into this {@link Injector}
+	 */
+	Injector(InjectorListener listener, Module[] modules) {
+		this(null, listener, modules);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param parent the extended injector, can be null
+	 * @param modules modules to install into this {@link Injector}
+	 */
+	Injector(Injector parent, Module[] modules) {
+		this(parent, (parent == null ? null : parent.listener), modules);
+	}
+
+	private Injector(Injector parent, InjectorListener listener, Module[] modules) {
+		final Object event = EventRecorder.INSTANCE.beginInjectorCreation();
+		this.parent = parent;
+		this.listener = listener;
+		this.ancestorVersion = (parent == null ? new AtomicInteger() : parent.ancestorVersion);
+		if (parent != null) {
+			parent.extended = true;
+		}
 		install(modules);
+		EventRecorder.INSTANCE.endInjectorCreation(event, this, modules.length);
 	}
 
 	/**
 	 * Creates new instance of {@link Injector} that inherits parent injector's providers
-	 * and can have additional {@link Module}s installed.
+	 * and can have additional {@link Module}s installed. The parent's providers are not copied,
+	 * lookups that find no match in the extending injector continue in its parent, so providers
+	 * of the additional modules shadow matching parent providers. Multiple results, like
+	 * {@link #getAll(Class)} and collection dependencies, contain providers of both injectors.
 	 * 
 	 * @param modules additional modules the extended injector should install
 	 * 
 	 * @return the extending injector
 	 */
 	public Injector extendWith(Module...modules) {
-		Injector extended = new Injector(new Module[]{});
-		for (Provider<?> p : providers) {
-			add(p);
+		return new Injector(this, modules);
+	}
+
+	/**
+	 * Returns the {@link Injector} this injector extends.
+	 * 
+	 * @return the parent injector or null if this is a root injector
+	 */
+	public Injector getParent() {
+		return this.parent;
+	}
+
+	/**
+	 * Sets the executor used for background work like refreshing cached providers.
+	 * 
+	 * @param executor the executor, null to use the parent injector's executor
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns the executor used for background work. Unless set using
+	 * {@link #setExecutor(Executor)}, it is the parent injector's executor or
+	 * {@link ForkJoinPool#commonPool()} for a root injector.
+	 * 
+	 * @return the executor
+	 */
+	public Executor getExecutor() {
+		final Executor current = this.executor;
+		if (current != null) {
+			return current;
 		}
-		extended.install(modules);
-		return extended;
+		return (parent != null ? parent.getExecutor() : ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns the listener of this injector, inherited by the injectors extending it.
+	 * 
+	 * @return the listener or null if there is none
+	 */
+	InjectorListener getListener() {
+		return this.listener;
 	}
 
 	/**
@@ -83,12 +187,56 @@ public class Injector {
 	 * 
 	 * @return instance of type {@code T}
 	 */
-	@SuppressWarnings("unchecked")
 	public <T> T get(TypeLiteral<T> type, String name) {
-		Provider provider = find(type.getType(), name, null);
+		return get(Key.get(type, name));
+	}
+
+	/**
+	 * Returns an instance from a provider matching given {@link Key}.
+	 * 
+	 * @param key the key
+	 * @param <T> requested type
+	 * 
+	 * @return instance of type {@code T}
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(Key<T> key) {
+		Provider provider = find(key, null);
 		return (provider == null ? null : (T) provider.get()); 
 	}
 	
+	/**
+	 * Returns several instances from a provider matching given class type, resolving
+	 * dependencies shared by the instances only once.
+	 * 
+	 * @param typeClass type as Class
+	 * @param count number of instances
+	 * @param <T> requested type
+	 * 
+	 * @return list of {@code count} instances of type {@code T} or null if there is no matching provider
+	 * @see Provider#getMany(int)
+	 */
+	public <T> List<T> getMany(Class<T> typeClass, int count) {
+		return getMany(Key.get(typeClass), count);
+	}
+
+	/**
+	 * Returns several instances from a provider matching given key, resolving
+	 * dependencies shared by the instances only once.
+	 * 
+	 * @param key type and name of the provider
+	 * @param count number of instances
+	 * @param <T> requested type
+	 * 
+	 * @return list of {@code count} instances of type {@code T} or null if there is no matching provider
+	 * @see Provider#getMany(int)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getMany(Key<T> key, int count) {
+		Provider provider = find(key, null);
+		return (provider == null ? null : (List<T>) provider.getMany(count));
+	}
+
 	/**
 	 * Returns an instance from a provider matching given class type.
 	 * 
@@ -111,10 +259,98 @@ public class Injector {
 	 * @return instance of type {@code T}
 	 */
 	public <T> T get(Class<T> typeClass, String name) {
-		Provider provider = find(typeClass, name, null);
+		Provider provider = find(Key.get(typeClass, name), null);
 		return (provider == null ? null : typeClass.cast(provider.get()));
 	}
 	
+	/**
+	 * Returns a future instance from a provider matching given class type.
+	 * 
+	 * @see #getAsync(Class, String)
+	 * 
+	 * @param typeClass type as Class
+	 * @param <T> requested type
+	 * 
+	 * @return future instance of type {@code T}
+	 */
+	public <T> CompletableFuture<T> getAsync(Class<T> typeClass) {
+		return getAsync(typeClass, null);
+	}
+
+	/**
+	 * Returns a future instance from a provider matching given class type and name.
+	 * The provider's dependencies are resolved concurrently and the instance is created on
+	 * this injector's {@link #getExecutor() executor}. If there is no provider of the type, a
+	 * provider of a {@link CompletableFuture} of the type is used. The future completes with
+	 * null if neither is found.
+	 * 
+	 * @param typeClass type as Class
+	 * @param name the name
+	 * @param <T> requested type
+	 * 
+	 * @return future instance of type {@code T}
+	 */
+	public <T> CompletableFuture<T> getAsync(Class<T> typeClass, String name) {
+		return getAsync(Key.get(typeClass, name));
+	}
+
+	/**
+	 * Returns a future instance from a provider matching given {@link TypeLiteral}'s type.
+	 * 
+	 * @see #getAsync(Class, String)
+	 * 
+	 * @param type type as {@link TypeLiteral}
+	 * @param <T> requested type
+	 * 
+	 * @return future instance of type {@code T}
+	 */
+	public <T> CompletableFuture<T> getAsync(TypeLiteral<T> type) {
+		return getAsync(type, null);
+	}
+
+	/**
+	 * Returns a future instance from a provider matching given {@link TypeLiteral}'s type and name.
+	 * 
+	 * @see #getAsync(Class, String)
+	 * 
+	 * @param type type as {@link TypeLiteral}
+	 * @param name the name
+	 * @param <T> requested type
+	 * 
+	 * @return future instance of type {@code T}
+	 */
+	public <T> CompletableFuture<T> getAsync(TypeLiteral<T> type, String name) {
+		return getAsync(Key.get(type, name));
+	}
+
+	/**
+	 * Returns a future instance from a provider matching given {@link Key}.
+	 * 
+	 * @see #getAsync(Class, String)
+	 * 
+	 * @param key the key
+	 * @param <T> requested type
+	 * 
+	 * @return future instance of type {@code T}
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<T> getAsync(Key<T> key) {
+		try {
+			final Provider<?> provider = find(key, null);
+			if (provider != null) {
+				return (CompletableFuture<T>) provider.getAsync();
+			}
+			final Provider<?> future = find(
+					Key.get(Types.parameterized(CompletableFuture.class, key.getType()), key.getName()), null);
+			if (future != null) {
+				return (CompletableFuture<T>) (CompletableFuture<?>) Provider.flatten(future.getAsync());
+			}
+			return CompletableFuture.completedFuture(null);
+		} catch (RuntimeException e) {
+			return Provider.failedFuture(e);
+		}
+	}
+	
 	/**
 	 * Returns instances from all providers for the given type.
 	 * 
@@ -140,8 +376,21 @@ public class Injector {
 	 * @return set of instances
 	 */
 	public <T> Set<T> getAll(TypeLiteral<T> type, String name) {
-		Collection<Provider> providers = findMatchingProviders(type.getType(), name, null);
-		return multipleResults(providers, type.getRawType()); 
+		return getAll(Key.get(type, name));
+	}
+
+	/**
+	 * Returns instances from all providers matching the given {@link Key}, in binding order
+	 * with parent providers first. Name matching is done like {@link String#matches(String)}.
+	 * Use {@link #stream(Key)} to only create the instances that are needed.
+	 * 
+	 * @param key the key
+	 * @param <T> requested type
+	 * 
+	 * @return set of instances
+	 */
+	public <T> Set<T> getAll(Key<T> key) {
+		return multipleResults(findAllMatchingProviders(key, null));
 	}
 
 	/**
@@ -169,22 +418,223 @@ public class Injector {
 	 * @return set of instances
 	 */
 	public <T> Set<T> getAll(Class<T> typeClass, String name) {
-		Collection<Provider> providers = findMatchingProviders(typeClass, name, null);
-		return multipleResults(providers, typeClass);
+		return getAll(Key.get(typeClass, name));
 	}
 	
 	/**
-	 * Returns unmodifiable read-only list of providers.
+	 * Returns a stream of instances from all providers matching given class type.
+	 * 
+	 * @see #stream(Key)
+	 * 
+	 * @param typeClass instance type as class
+	 * @param <T> requested type
+	 * 
+	 * @return lazy stream of instances
+	 */
+	public <T> Stream<T> stream(Class<T> typeClass) {
+		return stream(Key.get(typeClass));
+	}
+
+	/**
+	 * Returns a stream of instances from all providers matching given class type and name.
+	 * 
+	 * @see #stream(Key)
+	 * 
+	 * @param typeClass instance type as class
+	 * @param name name qualifier, will not be used if null
+	 * @param <T> requested type
+	 * 
+	 * @return lazy stream of instances
+	 */
+	public <T> Stream<T> stream(Class<T> typeClass, String name) {
+		return stream(Key.get(typeClass, name));
+	}
+
+	/**
+	 * Returns a stream of instances from all providers matching the given {@link Key}, in binding
+	 * order with parent providers first. Instances are only created as the stream is consumed,
+	 * so short-circuiting operations like {@link Stream#findFirst()} skip the remaining providers,
+	 * and a {@link Stream#parallel() parallel} stream creates instances in parallel.
+	 * Name matching is done like {@link String#matches(String)}.
+	 * 
+	 * @param key the key
+	 * @param <T> requested type
+	 * 
+	 * @return lazy stream of instances
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Stream<T> stream(Key<T> key) {
+		final Collection<Provider> providers = findAllMatchingProviders(key, null);
+		return (Stream<T>) DependencyPlan.stream(providers.toArray(new Provider[providers.size()]));
+	}
+
+	/**
+	 * Returns all providers matching the given {@link Key}, in binding order with
+	 * parent providers first. Name matching is done like {@link String#matches(String)}.
+	 * 
+	 * @param key the key
+	 * @param <T> provided type
+	 * 
+	 * @return unmodifiable list of providers
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<Provider<T>> getAllProviders(Key<T> key) {
+		return (List<Provider<T>>) (List<?>) Collections.unmodifiableList(
+				new ArrayList<Provider>(findAllMatchingProviders(key, null)));
+	}
+
+	/**
+	 * Returns a map of instances from all providers matching given class type, keyed by provider name.
+	 * 
+	 * @see #getMap(Key)
+	 * 
+	 * @param typeClass instance type as class
+	 * @param <T> requested type
+	 * 
+	 * @return unmodifiable map of instances by provider name
+	 */
+	public <T> Map<String, T> getMap(Class<T> typeClass) {
+		return getMap(Key.get(typeClass));
+	}
+
+	/**
+	 * Returns a map of instances from all providers matching the given {@link Key}, keyed by
+	 * provider name. Name matching is done like {@link String#matches(String)}. The map is
+	 * built once per bindings version and creates an instance only when its value is read,
+	 * so dispatching to one of many providers of a type by name is a single hash lookup.
+	 * Of providers with equal names, this injector's shadow the parent's.
+	 * 
+	 * @param key the key
+	 * @param <T> requested type
+	 * 
+	 * @return unmodifiable map of instances by provider name
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Map<String, T> getMap(Key<T> key) {
+		// maps are kept by the registry snapshot and rebuilt if a parent's bindings changed
+		final ProviderRegistry current = this.registry.get();
+		final int version = getVersion();
+		ProviderMap map = current.getMap(key);
+		if (map == null || map.version != version) {
+			map = current.putMap(key, map, new ProviderMap(version, ProviderMap.byName(findAllMatchingProviders(key, null))));
+		}
+		return (Map<String, T>) (Map<String, ?>) map;
+	}
+
+	/**
+	 * Initializes all cached providers of this injector, and the cached providers they depend on,
+	 * instead of waiting for their first use. A provider is initialized on the given executor once
+	 * all cached providers it depends on are initialized, so independent providers are initialized
+	 * in parallel. Providers that are already initialized are skipped. Blocks until all providers
+	 * are initialized.
+	 * 
+	 * @see java.util.concurrent.ForkJoinPool#commonPool()
+	 * 
+	 * @param executor executor to initialize providers on
+	 * @return initialization time in nanoseconds of every initialized provider, in completion order
+	 * @throws RuntimeException if the cached providers' dependencies contain a cycle
+	 * or any provider failed to initialize
+	 */
+	public Map<Provider<?>, Long> initializeSingletons(Executor executor) {
+		Provider.checkNotNull(executor, "executor");
+		return new SingletonInitializer(executor).initialize(getProviders());
+	}
+
+	/**
+	 * Returns unmodifiable read-only list of providers installed into this injector,
+	 * without the providers of its parents.
 	 * 
 	 * @return list of providers
 	 */
 	final List<Provider> getProviders() {
-		return Collections.unmodifiableList(this.providers);
+		return this.registry.get().getProviders();
+	}
+
+	/**
+	 * Returns the version of this {@link Injector}'s bindings. The version changes
+	 * every time a provider is added to this injector or any of its parents. It is read
+	 * without walking the parents: adding a provider to an injector that was extended
+	 * increments a counter shared by the whole hierarchy, so adding providers to leaf
+	 * injectors, like injectors extended per request, does not change their siblings' versions.
+	 * 
+	 * @return the bindings version
+	 */
+	int getVersion() {
+		final ProviderRegistry current = this.registry.get();
+		if (current.isFrozen()) {
+			return current.getFrozenVersion();
+		}
+		final int version = current.getVersion();
+		return (parent == null ? version : version + ancestorVersion.get());
+	}
+
+	/**
+	 * Freezes this {@link Injector} and all its parents. Every dependency of every provider
+	 * of this injector is linked up front and all missing or ambiguous dependencies are
+	 * reported together. A frozen injector rejects new providers, so linked dependencies never
+	 * have to be checked against changed bindings again, and dynamic proxies created for it
+	 * link all their methods when they are created. It can still be extended using
+	 * {@link #extendWith(Module...)}.
+	 * 
+	 * @return this injector
+	 * @throws RuntimeException listing all dependencies that could not be linked,
+	 * the injector stays frozen
+	 */
+	public Injector freeze() {
+		if (parent != null) {
+			parent.freeze();
+		}
+		ProviderRegistry current;
+		do {
+			current = this.registry.get();
+			if (current.isFrozen()) {
+				return this;
+			}
+		} while (!this.registry.compareAndSet(current, current.freeze(getVersion())));
+		final List<String> errors = new ArrayList<String>();
+		for (Provider provider : getProviders()) {
+			try {
+				provider.getDependencyPlan();
+			} catch (RuntimeException e) {
+				errors.add(String.format("%s\n  %s", provider, e.getMessage()));
+			}
+		}
+		checkErrors("Injector", errors);
+		return this;
+	}
+
+	/**
+	 * Returns true if this {@link Injector} was frozen and no longer accepts providers.
+	 * 
+	 * @see #freeze()
+	 * 
+	 * @return true if frozen
+	 */
+	public boolean isFrozen() {
+		return this.registry.get().isFrozen();
+	}
+
+	/**
+	 * Throws a {@link RuntimeException} listing all given linking errors, if there are any.
+	 * 
+	 * @param subject what failed to link
+	 * @param errors the errors
+	 */
+	static void checkErrors(String subject, List<String> errors) {
+		if (errors.isEmpty()) {
+			return;
+		}
+		final StringBuilder message = new StringBuilder(
+				String.format("%s has %d linking error(s):", subject, errors.size()));
+		for (int i = 0; i < errors.size(); i++) {
+			message.append(String.format("\n%d) %s", i + 1, errors.get(i)));
+		}
+		throw new RuntimeException(message.toString());
 	}
 
 	/**
 	 * Searches and returns a single provider for the given type, name and/or
-	 * dependency type array. Null arguments are not set as search criteria.
+	 * dependency type array. Null name and dependencies are not set as search criteria.
 	 * Name matching is done like {@link String#matches(String)}. Returns single
 	 * found provider or null if none match. Throws {@link RuntimeException} if multiple
 	 * candidates match.
@@ -198,14 +648,37 @@ public class Injector {
 	 * @return matching provider or null if none match
 	 */
 	Provider find(Type type, String name, Type[] dependencies) {
-		return singleResult(findMatchingProviders(type, name, dependencies));
+		return find(Key.get(type, name), dependencies);
+	}
+
+	/**
+	 * Searches and returns a single provider for the given key and dependency type array.
+	 * 
+	 * @see #find(Type, String, Type[])
+	 * 
+	 * @param key provider type and name to match
+	 * @param dependencies dependency types to match, not used if null
+	 * 
+	 * @return matching provider or null if none match
+	 */
+	Provider find(Key<?> key, Type[] dependencies) {
+		final InjectorListener listener = this.listener;
+		final Object event = EventRecorder.INSTANCE.beginLookup();
+		final long start = (listener == null ? 0 : System.nanoTime());
+		final Provider provider = singleResult(findMatchingProviders(key, dependencies));
+		if (listener != null) {
+			listener.onLookup(key.getType(), key.getName(), provider, System.nanoTime() - start);
+		}
+		EventRecorder.INSTANCE.endLookup(event, key.getType(), key.getName(), provider);
+		return provider;
 	}
 	
 	/**
 	 * Searches and returns all providers for the given type, name and/or
-	 * dependency type array. Null arguments are not set as search criteria.
-	 * Name matching is done like {@link String#matches(String)}. Returns single
-	 * found provider or empty collection if none match.
+	 * dependency type array. Null name and dependencies are not set as search criteria.
+	 * Name matching is done like {@link String#matches(String)}. Providers of this
+	 * injector shadow the parent's, the parent is only searched if none of this
+	 * injector's providers match. Returns empty collection if none match.
 	 * 
 	 * @see String#matches(String)
 	 * 
@@ -213,46 +686,119 @@ public class Injector {
 	 * @param name provider name to match
 	 * @param dependencies dependency types to match
 	 * 
-	 * @return collection with all matching providers, can be empty
+	 * @return unmodifiable collection with all matching providers, can be empty
 	 */
 	protected Collection<Provider> findMatchingProviders(Type type, String name, Type[] dependencies) {
-		ProviderFinder finder = new ProviderFinder(getProviders())
-			.byReturnType(type);
-		if (name != null) {
-			finder.byName(name);
+		return findMatchingProviders(Key.get(type, name), dependencies);
+	}
+
+	private Collection<Provider> findMatchingProviders(Key<?> key, Type[] dependencies) {
+		final Collection<Provider> matching = findLocalProviders(key, dependencies);
+		if (matching.isEmpty() && parent != null) {
+			return parent.findMatchingProviders(key, dependencies);
+		}
+		return matching;
+	}
+	
+	/**
+	 * Searches and returns providers of this injector and all its parents for the given
+	 * key and dependency type array. Parent providers come before this injector's providers.
+	 * 
+	 * @param key provider type and name to match
+	 * @param dependencies dependency types to match, not used if null
+	 * 
+	 * @return unmodifiable collection with all matching providers, can be empty
+	 */
+	Collection<Provider> findAllMatchingProviders(Key<?> key, Type[] dependencies) {
+		final Collection<Provider> matching = findLocalProviders(key, dependencies);
+		if (parent == null) {
+			return matching;
+		}
+		final Collection<Provider> inherited = parent.findAllMatchingProviders(key, dependencies);
+		if (matching.isEmpty()) {
+			return inherited;
 		}
-		if (dependencies != null && dependencies.length > 0) {
-			finder.byArguments(dependencies);
+		final List<Provider> all = new ArrayList<Provider>(inherited.size() + matching.size());
+		all.addAll(inherited);
+		all.addAll(matching);
+		return Collections.unmodifiableList(all);
+	}
+
+	/**
+	 * Returns this injector's providers matching the key and dependency types.
+	 * 
+	 * @return unmodifiable collection of providers, can be empty
+	 */
+	private Collection<Provider> findLocalProviders(Key<?> key, Type[] dependencies) {
+		// providers are indexed by canonical type and name matches are remembered by the registry
+		final List<Provider> matching = this.registry.get().getProviders(key);
+		if (dependencies == null || dependencies.length == 0 || matching.isEmpty()) {
+			return matching;
 		}
-		return finder.find();
+		return new ProviderFinder(matching).byArguments(dependencies).find();
 	}
 	
 	/**
-	 * Adds provider to this {@link Injector} instance.
+	 * Adds provider to this {@link Injector} instance. Providers bound while a module is
+	 * being configured are added together once the module is configured.
 	 * 
 	 * @param provider {@link Provider} to add
 	 */
 	void add(Provider provider) {
-		int pos = this.providers.indexOf(provider);
-		if (pos == -1) {
-			this.providers.add(provider);
+		if (installLock.isHeldByCurrentThread()) {
+			this.binding.add(provider);
 			return;
 		}
-		Provider other = this.providers.get(pos);
-		throw new RuntimeException(
-				String.format("Multiple provider methods with matching signatures:\n%s\n%s", provider, other));
+		publish(Collections.singletonList(provider));
+	}
+
+	/**
+	 * Adds providers to this {@link Injector}'s registry in a single new snapshot.
+	 */
+	private void publish(List<Provider> providers) {
+		ProviderRegistry current;
+		ProviderRegistry updated;
+		do {
+			current = this.registry.get();
+			updated = current.with(providers);
+		} while (current != updated && !this.registry.compareAndSet(current, updated));
+		// read after publishing, an injector extending this one meanwhile already sees the providers
+		if (extended) {
+			ancestorVersion.incrementAndGet();
+		}
 	}
 	
-	private void install(Module...modules) {
+	/**
+	 * Installs additional {@link Module}s into this {@link Injector}. Modules can be installed
+	 * while other threads are resolving instances, lookups never block and see either
+	 * the bindings before or after each installed module. A module that fails to configure
+	 * adds none of its providers.
+	 * 
+	 * @param modules modules to install
+	 */
+	public void install(Module...modules) {
 		Provider.checkNotNull(modules, "module array");
 		for (Module module : modules){
 			Provider.checkNotNull(module, "module");
-			module.configure(this);
+			final List<Provider> bound = new ArrayList<Provider>();
+			installLock.lock();
+			// a module can install other modules while it is being configured
+			final List<Provider> outer = this.binding;
+			try {
+				this.binding = bound;
+				final Object event = EventRecorder.INSTANCE.beginModuleConfiguration();
+				module.configure(this);
+				EventRecorder.INSTANCE.endModuleConfiguration(event, module, bound.size());
+				publish(bound);
+			} finally {
+				this.binding = outer;
+				installLock.unlock();
+			}
 		}
 	}
 	
-	private <T> Set<T> multipleResults(Collection<Provider> collection, Class<T> clazz) {
-		Set<T> all = new HashSet<T>();
+	private <T> Set<T> multipleResults(Collection<Provider> collection) {
+		Set<T> all = new LinkedHashSet<T>();
 		for (Provider mp : collection) {
 			@SuppressWarnings("unchecked")
 			T value = (T) mp.get();
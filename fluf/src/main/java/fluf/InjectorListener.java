@@ -0,0 +1,71 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Type;
+
+/**
+ * Listener notified by an {@link Injector} of provisions, cache hits and misses, lookups and
+ * proxy calls. Installed using {@link Fluf#createInjector(InjectorListener, Module...)}, it is
+ * inherited by the injectors extending that injector.
+ * <p>
+ * Listeners are called on the resolving thread, often while a cached provider's lock is held,
+ * so they must be thread-safe, fast and must not throw. Without a listener the injector
+ * only checks for its absence. {@link InjectorMetrics} is a ready to use implementation.
+ */
+public interface InjectorListener {
+
+	/**
+	 * Called after a provider created an instance.
+	 * 
+	 * @param provider the provider
+	 * @param nanos time spent in the provider, without resolving its dependencies
+	 */
+	void onProvision(Provider<?> provider, long nanos);
+
+	/**
+	 * Called when a cached provider returned its existing instance.
+	 * 
+	 * @param provider the cached provider
+	 */
+	void onCacheHit(Provider<?> provider);
+
+	/**
+	 * Called when a cached provider has to create its instance, before it is created.
+	 * 
+	 * @param provider the cached provider
+	 */
+	void onCacheMiss(Provider<?> provider);
+
+	/**
+	 * Called after a provider lookup by type, name and/or dependency types, including the
+	 * lookups done when linking dependencies.
+	 * 
+	 * @param type the looked up type
+	 * @param name the looked up name, can be null
+	 * @param provider the found provider or null if none matched
+	 * @param nanos time spent looking up the provider
+	 */
+	void onLookup(Type type, String name, Provider<?> provider, long nanos);
+
+	/**
+	 * Called when a proxy or generated factory method is invoked, before its provider is invoked.
+	 * 
+	 * @param provider the provider bound to the method
+	 */
+	void onProxyCall(Provider<?> provider);
+}
@@ -0,0 +1,166 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link InjectorListener} counting provisions, cache hits and misses, lookups and proxy calls
+ * of every binding and recording provision and lookup latency histograms. Recording is
+ * lock-free, counters of a binding are allocated when it is first seen.
+ * <p>
+ * Counters are kept per binding {@link Key} rather than per {@link Provider}, so providers of
+ * the same binding in extending injectors, which inherit the listener, share their counters
+ * and aren't kept reachable after their injectors are discarded.
+ * 
+ * <pre>
+ * InjectorMetrics metrics = new InjectorMetrics();
+ * Injector injector = Fluf.createInjector(metrics, new MyAppModule());
+ * ...
+ * for (Map.Entry&lt;Key&lt;?&gt;, BindingStats&gt; e : metrics.getStats().entrySet()) {
+ *     export(e.getKey().toString(), e.getValue());
+ * }
+ * </pre>
+ */
+public final class InjectorMetrics implements InjectorListener {
+
+	/** Counters of every binding seen. */
+	private final ConcurrentMap<Key<?>, Counters> counters = new ConcurrentHashMap<Key<?>, Counters>();
+
+	private final LatencyHistogram lookupLatency = new LatencyHistogram();
+
+	private final LongAdder failedLookups = new LongAdder();
+
+	@Override
+	public void onProvision(Provider<?> provider, long nanos) {
+		final Counters c = countersOf(provider);
+		c.provisions.increment();
+		c.provisionLatency.record(nanos);
+	}
+
+	@Override
+	public void onCacheHit(Provider<?> provider) {
+		countersOf(provider).cacheHits.increment();
+	}
+
+	@Override
+	public void onCacheMiss(Provider<?> provider) {
+		countersOf(provider).cacheMisses.increment();
+	}
+
+	@Override
+	public void onLookup(Type type, String name, Provider<?> provider, long nanos) {
+		lookupLatency.record(nanos);
+		if (provider == null) {
+			failedLookups.increment();
+		} else {
+			countersOf(provider).lookups.increment();
+		}
+	}
+
+	@Override
+	public void onProxyCall(Provider<?> provider) {
+		countersOf(provider).proxyCalls.increment();
+	}
+
+	/**
+	 * Returns a snapshot of the counters of the given provider's binding.
+	 * 
+	 * @param provider the provider
+	 * @return the binding's statistics, all zero if nothing was recorded for it
+	 */
+	public BindingStats getStats(Provider<?> provider) {
+		return getStats(provider.getKey());
+	}
+
+	/**
+	 * Returns a snapshot of the given binding's counters.
+	 * 
+	 * @param key key of the binding
+	 * @return the binding's statistics, all zero if nothing was recorded for it
+	 */
+	public BindingStats getStats(Key<?> key) {
+		final Counters c = counters.get(key);
+		return (c == null ? new Counters().snapshot() : c.snapshot());
+	}
+
+	/**
+	 * Returns a snapshot of the counters of every binding something was recorded for.
+	 * 
+	 * @return unmodifiable map of statistics by binding key
+	 */
+	public Map<Key<?>, BindingStats> getStats() {
+		final Map<Key<?>, BindingStats> stats = new HashMap<Key<?>, BindingStats>();
+		for (Map.Entry<Key<?>, Counters> e : counters.entrySet()) {
+			stats.put(e.getKey(), e.getValue().snapshot());
+		}
+		return Collections.unmodifiableMap(stats);
+	}
+
+	/**
+	 * Returns a snapshot of the durations of all lookups.
+	 * 
+	 * @return lookup latency
+	 */
+	public LatencyStats getLookupLatency() {
+		return lookupLatency.snapshot();
+	}
+
+	/**
+	 * Returns the number of lookups that found no provider.
+	 * 
+	 * @return failed lookup count
+	 */
+	public long getFailedLookups() {
+		return failedLookups.sum();
+	}
+
+	private Counters countersOf(Provider<?> provider) {
+		final Key<?> key = provider.getKey();
+		final Counters c = counters.get(key);
+		if (c != null) {
+			return c;
+		}
+		final Counters created = new Counters();
+		final Counters existing = counters.putIfAbsent(key, created);
+		return (existing != null ? existing : created);
+	}
+
+	/**
+	 * Counters of a single binding.
+	 */
+	private static final class Counters {
+
+		final LongAdder provisions = new LongAdder();
+		final LatencyHistogram provisionLatency = new LatencyHistogram();
+		final LongAdder cacheHits = new LongAdder();
+		final LongAdder cacheMisses = new LongAdder();
+		final LongAdder lookups = new LongAdder();
+		final LongAdder proxyCalls = new LongAdder();
+
+		BindingStats snapshot() {
+			return new BindingStats(provisions.sum(), provisionLatency.snapshot(), cacheHits.sum(),
+					cacheMisses.sum(), lookups.sum(), proxyCalls.sum());
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Bounded lock-free pool of a pooled {@link Provider}'s idle instances. Every thread starts
+ * looking for an instance, or a free slot, at its own home slot, so a thread that keeps taking
+ * and returning instances usually succeeds with a single uncontended compare-and-set.
+ * When the pool is empty a new instance is created, when it is full a returned instance
+ * is dropped, so the pool bounds only the number of idle instances it keeps.
+ */
+final class InstancePool {
+
+	private final Provider<?> provider;
+
+	/** Idle instances, empty slots are null. */
+	private final AtomicReferenceArray<Object> slots;
+
+	/** Validates returned instances, null if all instances are reused. */
+	@SuppressWarnings("rawtypes")
+	private final Predicate validator;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param provider the pooled provider
+	 * @param size maximum number of idle instances
+	 * @param validator validates returned instances, can be null
+	 */
+	@SuppressWarnings("rawtypes")
+	InstancePool(Provider<?> provider, int size, Predicate validator) {
+		this.provider = provider;
+		this.slots = new AtomicReferenceArray<Object>(size);
+		this.validator = validator;
+	}
+
+	/**
+	 * Takes an idle instance from the pool or creates a new one if there is none.
+	 * 
+	 * @return the instance
+	 */
+	Object acquire() {
+		final int length = slots.length();
+		final int home = home(length);
+		for (int i = 0; i < length; i++) {
+			final int index = (home + i) % length;
+			if (slots.get(index) != null) {
+				final Object instance = slots.getAndSet(index, null);
+				if (instance != null) {
+					return instance;
+				}
+			}
+		}
+		return provider.create();
+	}
+
+	/**
+	 * Returns an instance to the pool. Instances rejected by the validator, null instances and
+	 * instances that don't fit into the pool are dropped.
+	 * 
+	 * @param instance the instance
+	 */
+	@SuppressWarnings("unchecked")
+	void release(Object instance) {
+		if (instance == null || (validator != null && !validator.test(instance))) {
+			return;
+		}
+		final int length = slots.length();
+		final int home = home(length);
+		for (int i = 0; i < length; i++) {
+			final int index = (home + i) % length;
+			if (slots.get(index) == null && slots.compareAndSet(index, null, instance)) {
+				return;
+			}
+		}
+	}
+
+	private static int home(int length) {
+		final long id = Thread.currentThread().getId();
+		return (int) ((id ^ (id >>> 16)) & Integer.MAX_VALUE) % length;
+	}
+}
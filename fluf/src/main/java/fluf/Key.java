@@ -0,0 +1,164 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Type;
+
+/**
+ * Immutable binding key made of a type and an optional name qualifier. The type is
+ * canonicalized, primitive types are boxed and equal generic types share one instance,
+ * so keys compare types by reference and have a precomputed hash code.
+ * <p>
+ * Unlike a {@link TypeLiteral}, a key can be created once and kept in a {@code static final}
+ * field, so repeated lookups don't create or inspect anything:
+ * <p>
+ * {@code static final Key<List<String>> NAMES = Key.get(new TypeLiteral<List<String>>() {}, "names");}
+ * <p>
+ * Like everywhere else, the name is matched against provider names using
+ * {@link String#matches(String)}.
+ * 
+ * @param <T> the type of instances this key identifies
+ */
+public final class Key<T> {
+
+	/** Canonical type. */
+	private final Type type;
+
+	/** Name qualifier, null if instances of any name match. */
+	private final String name;
+
+	/** True if the name is a regular expression rather than a literal name. */
+	private final boolean pattern;
+
+	private final int hash;
+
+	private Key(Type type, String name) {
+		this.type = type;
+		this.name = name;
+		this.pattern = (name != null && !ProviderFinder.isLiteral(name));
+		this.hash = type.hashCode() * 31 + (name == null ? 0 : name.hashCode());
+	}
+
+	/**
+	 * Returns a key of the given class.
+	 * 
+	 * @param type the class
+	 * @param <T> the type
+	 * @return the key
+	 */
+	public static <T> Key<T> get(Class<T> type) {
+		return get(type, null);
+	}
+
+	/**
+	 * Returns a key of the given class and name.
+	 * 
+	 * @param type the class
+	 * @param name the name, can be null
+	 * @param <T> the type
+	 * @return the key
+	 */
+	public static <T> Key<T> get(Class<T> type, String name) {
+		return new Key<T>(Types.canonicalize(Provider.checkNotNull(type, "type")), name);
+	}
+
+	/**
+	 * Returns a key of the given {@link TypeLiteral}'s type.
+	 * 
+	 * @param type the type literal
+	 * @param <T> the type
+	 * @return the key
+	 */
+	public static <T> Key<T> get(TypeLiteral<T> type) {
+		return get(type, null);
+	}
+
+	/**
+	 * Returns a key of the given {@link TypeLiteral}'s type and name.
+	 * 
+	 * @param type the type literal
+	 * @param name the name, can be null
+	 * @param <T> the type
+	 * @return the key
+	 */
+	public static <T> Key<T> get(TypeLiteral<T> type, String name) {
+		return new Key<T>(Types.canonicalize(Provider.checkNotNull(type, "type").getType()), name);
+	}
+
+	/**
+	 * Returns a key of the given type and name, e.g. of a type created using {@link Types}.
+	 * 
+	 * @param type the type
+	 * @param name the name, can be null
+	 * @return the key
+	 */
+	public static Key<?> get(Type type, String name) {
+		return new Key<Object>(Types.canonicalize(Provider.checkNotNull(type, "type")), name);
+	}
+
+	/**
+	 * Returns the canonical type of this key.
+	 * 
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the name qualifier of this key.
+	 * 
+	 * @return the name or null if this key matches any name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns true if the name qualifier contains regular expression metacharacters,
+	 * see {@link ProviderFinder#isLiteral(String)}.
+	 * 
+	 * @return true if the name is a pattern, false if it is a literal name or null
+	 */
+	boolean isPattern() {
+		return pattern;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Key)) {
+			return false;
+		}
+		final Key<?> other = (Key<?>) obj;
+		// canonical types are compared by reference, only array types and type variables need equals
+		return hash == other.hash && (type == other.type || type.equals(other.type))
+				&& (name == null ? other.name == null : name.equals(other.name));
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Key[type: %s, name: %s]", type.getTypeName(), name);
+	}
+}
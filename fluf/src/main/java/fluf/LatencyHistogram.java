@@ -0,0 +1,100 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Lock-free histogram of durations in nanoseconds. Like an HdrHistogram, values are counted in
+ * buckets growing exponentially, each power of two range split into {@value #SUB_BUCKETS} linear
+ * sub-buckets, so recorded values are within 12.5% of their bucket's upper bound.
+ */
+final class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+
+	static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/** Buckets needed for all non-negative long values. */
+	private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+		@Override
+		public long applyAsLong(long left, long right) {
+			return Math.max(left, right);
+		}
+	};
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder sum = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(MAX, 0);
+
+	/**
+	 * Records a duration, negative durations are recorded as 0.
+	 * 
+	 * @param nanos the duration in nanoseconds
+	 */
+	void record(long nanos) {
+		final long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucket(value));
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Returns a snapshot of the recorded values. Values recorded while the snapshot is
+	 * taken may be partially included.
+	 * 
+	 * @return the snapshot
+	 */
+	LatencyStats snapshot() {
+		final long[] copy = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+		}
+		return new LatencyStats(copy, sum.sum(), max.get());
+	}
+
+	/**
+	 * Returns the index of the bucket counting the given non-negative value.
+	 */
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Returns the largest value counted by the given bucket.
+	 */
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final int shift = bucket / SUB_BUCKETS - 1;
+		final long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lower + ((1L << shift) - 1);
+	}
+}
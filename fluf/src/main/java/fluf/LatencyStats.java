@@ -0,0 +1,96 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Snapshot of a {@link LatencyHistogram}'s recorded durations in nanoseconds.
+ * 
+ * @see InjectorMetrics
+ */
+public final class LatencyStats {
+
+	private final long[] counts;
+	private final long count;
+	private final long sum;
+	private final long max;
+
+	LatencyStats(long[] counts, long sum, long max) {
+		long total = 0;
+		for (long c : counts) {
+			total += c;
+		}
+		this.counts = counts;
+		this.count = total;
+		this.sum = sum;
+		this.max = max;
+	}
+
+	/**
+	 * Returns the number of recorded durations.
+	 * 
+	 * @return the count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the mean duration.
+	 * 
+	 * @return mean in nanoseconds, 0 if nothing was recorded
+	 */
+	public double getMean() {
+		return (count == 0 ? 0 : (double) sum / count);
+	}
+
+	/**
+	 * Returns the longest duration.
+	 * 
+	 * @return maximum in nanoseconds, 0 if nothing was recorded
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the duration the given percentage of recorded durations are shorter than or equal
+	 * to, accurate to 12.5%.
+	 * 
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the duration in nanoseconds, 0 if nothing was recorded
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+		}
+		final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0) {
+				return Math.min(LatencyHistogram.upperBound(i), max);
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LatencyStats[count: %d, mean: %.0fns, p50: %dns, p99: %dns, max: %dns]",
+				count, getMean(), getPercentile(50), getPercentile(99), max);
+	}
+}
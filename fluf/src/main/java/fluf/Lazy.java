@@ -0,0 +1,108 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dependency whose instance is only looked up and created when it is first used. Declaring a
+ * provider method parameter as {@code Lazy<T>} instead of {@code T} defers finding the provider
+ * of {@code T} and creating the instance until {@link #get()} is called, which is useful for
+ * dependencies that are expensive to create and only needed on some paths.
+ * <p>
+ * Unlike an injected {@link Provider}, which creates a new instance on every call unless it is
+ * cached, a {@link Lazy} creates its instance once and returns it from then on without locking.
+ * Every injection gets its own {@link Lazy}.
+ * 
+ * @param <T> the type of the instance
+ */
+public final class Lazy<T> {
+
+	private static final Object UNRESOLVED = new Object();
+
+	/** Dependency of the provider this instance was injected into. */
+	private final DependencyPlan.LazyDependency dependency;
+
+	/** Lock held while the instance is being created. */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Initializations of the thread that created this instance, continued by other threads. */
+	private final Initialization creator;
+
+	/** Creation of the instance in progress, null if there is none. */
+	private volatile Initialization resolving;
+
+	private volatile Object value = UNRESOLVED;
+
+	Lazy(DependencyPlan.LazyDependency dependency) {
+		this.dependency = dependency;
+		this.creator = Initialization.current();
+	}
+
+	/**
+	 * Returns the instance, creating it on the first call.
+	 * 
+	 * @return the instance
+	 * @throws RuntimeException if there is no provider of the instance or creating it
+	 * requires this {@link Lazy}'s instance, also when it is resolved on another thread
+	 * while the thread that created this {@link Lazy} waits for it
+	 */
+	@SuppressWarnings("unchecked")
+	public T get() {
+		Object current = value;
+		if (current == UNRESOLVED) {
+			final Initialization running = resolving;
+			if (running != null && running.encloses(Initialization.current())) {
+				throw new RuntimeException(String.format("Dependency cycle: %s requires itself while being created", this));
+			}
+			lock.lock();
+			try {
+				current = value;
+				if (current == UNRESOLVED) {
+					final Initialization outer = Initialization.current();
+					final Initialization started = new Initialization(this, (outer != null ? outer : creator));
+					resolving = started;
+					Initialization.set(started);
+					try {
+						current = dependency.getProvider().get();
+					} finally {
+						Initialization.set(outer);
+						resolving = null;
+					}
+					value = current;
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		return (T) current;
+	}
+
+	/**
+	 * Returns true if the instance was already created.
+	 * 
+	 * @return true if {@link #get()} was called
+	 */
+	public boolean isResolved() {
+		return value != UNRESOLVED;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Lazy[%s]", dependency);
+	}
+}
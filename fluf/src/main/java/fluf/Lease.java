@@ -0,0 +1,67 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An instance leased from a {@link Provider}. Closing the lease returns a pooled provider's
+ * instance to its pool, so leases are best used with try-with-resources:
+ * 
+ * <pre>
+ *   try (Lease&lt;Codec&gt; codec = codecProvider.lease()) {
+ *     codec.get().encode(message);
+ *   }</pre>
+ * 
+ * @param <T> the instance type
+ * @see Bind#pool()
+ */
+public final class Lease<T> implements AutoCloseable {
+
+	private final Provider<T> provider;
+
+	private T instance;
+
+	Lease(Provider<T> provider, T instance) {
+		this.provider = provider;
+		this.instance = instance;
+	}
+
+	/**
+	 * Returns the leased instance.
+	 * 
+	 * @return the instance
+	 * @throws IllegalStateException if the lease was closed
+	 */
+	public T get() {
+		final T current = this.instance;
+		if (current == null) {
+			throw new IllegalStateException("Lease is closed");
+		}
+		return current;
+	}
+
+	/**
+	 * Returns the instance to the provider, closing a lease more than once has no effect.
+	 */
+	@Override
+	public void close() {
+		final T current = this.instance;
+		if (current != null) {
+			this.instance = null;
+			provider.release(current);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes a provider method on its {@link Module}. The preferred implementation
+ * adapts the method into a {@link MethodHandle} once, so that invocations skip
+ * reflective access checks and can be inlined by the JIT. If a method handle cannot
+ * be created the invoker falls back to {@link Method#invoke(Object, Object...)}.
+ */
+abstract class MethodInvoker {
+
+	/**
+	 * Invokes the method with given argument values.
+	 * 
+	 * @param args argument values, can be null if the method has no parameters
+	 * @return the value returned by the method, null for void methods
+	 * @throws Throwable anything the method, or the invocation itself, throws
+	 */
+	abstract Object invoke(Object[] args) throws Throwable;
+
+	/**
+	 * Invokes a method with a single parameter.
+	 * 
+	 * @param arg0 the argument value
+	 * @return the value returned by the method, null for void methods
+	 * @throws Throwable anything the method, or the invocation itself, throws
+	 */
+	Object invoke(Object arg0) throws Throwable {
+		return invoke(new Object[] { arg0 });
+	}
+
+	/**
+	 * Invokes a method with two parameters.
+	 * 
+	 * @see #invoke(Object)
+	 */
+	Object invoke(Object arg0, Object arg1) throws Throwable {
+		return invoke(new Object[] { arg0, arg1 });
+	}
+
+	/**
+	 * Invokes a method with three parameters.
+	 * 
+	 * @see #invoke(Object)
+	 */
+	Object invoke(Object arg0, Object arg1, Object arg2) throws Throwable {
+		return invoke(new Object[] { arg0, arg1, arg2 });
+	}
+
+	/**
+	 * Creates the fastest available invoker for the given method.
+	 * 
+	 * @param target instance to invoke the method on, ignored for static methods
+	 * @param method the method, should already be accessible
+	 * @return the invoker
+	 */
+	static MethodInvoker create(Object target, Method method) {
+		try {
+			return new MethodHandleInvoker(target, method);
+		} catch (Throwable e) {
+			return new ReflectiveInvoker(target, method);
+		}
+	}
+
+	/**
+	 * Invoker using a {@link MethodHandle} adapted to {@code Object (Object[])}. Methods with
+	 * one to three parameters also get a handle adapted to {@code Object (Object...)} with
+	 * one {@code Object} parameter per method parameter, which needs no argument array.
+	 */
+	static class MethodHandleInvoker extends MethodInvoker {
+
+		private final MethodHandle handle;
+
+		/** Handle taking the arguments without an array, null if the method has more than three parameters. */
+		private final MethodHandle direct;
+
+		/** Number of method parameters. */
+		private final int arity;
+
+		MethodHandleInvoker(Object target, Method method) throws IllegalAccessException {
+			// unreflect() honors the accessible flag set on the method by its module
+			MethodHandle mh = MethodHandles.lookup().unreflect(method).asFixedArity();
+			if (!Modifier.isStatic(method.getModifiers())) {
+				mh = mh.bindTo(target);
+			}
+			this.arity = method.getParameterTypes().length;
+			this.handle = mh.asSpreader(Object[].class, arity)
+					.asType(MethodType.methodType(Object.class, Object[].class));
+			this.direct = (arity >= 1 && arity <= 3 ? mh.asType(MethodType.genericMethodType(arity)) : null);
+		}
+
+		@Override
+		Object invoke(Object[] args) throws Throwable {
+			return handle.invokeExact(args);
+		}
+
+		@Override
+		Object invoke(Object arg0) throws Throwable {
+			return (arity == 1 ? direct.invokeExact(arg0) : super.invoke(arg0));
+		}
+
+		@Override
+		Object invoke(Object arg0, Object arg1) throws Throwable {
+			return (arity == 2 ? direct.invokeExact(arg0, arg1) : super.invoke(arg0, arg1));
+		}
+
+		@Override
+		Object invoke(Object arg0, Object arg1, Object arg2) throws Throwable {
+			return (arity == 3 ? direct.invokeExact(arg0, arg1, arg2) : super.invoke(arg0, arg1, arg2));
+		}
+	}
+
+	/**
+	 * Invoker using {@link Method#invoke(Object, Object...)}.
+	 */
+	static class ReflectiveInvoker extends MethodInvoker {
+
+		private final Object target;
+
+		private final Method method;
+
+		ReflectiveInvoker(Object target, Method method) {
+			this.target = target;
+			this.method = method;
+		}
+
+		@Override
+		Object invoke(Object[] args) throws Throwable {
+			return method.invoke(target, args);
+		}
+	}
+}
@@ -28,6 +28,9 @@ public class MethodProvider<T> extends Provider<T> {
 	/** The provider method that returns the object instance. */
 	private final Method method;
 
+	/** Invoker of the provider method, created on first use. */
+	private volatile MethodInvoker invoker;
+
 	/** Name of this provider. If not specified otherwise, it is the name of the provider method. */
 	protected String name;
 
@@ -36,6 +39,9 @@ public class MethodProvider<T> extends Provider<T> {
 	
 	/** Dependency types. */
 	protected Type[] dependencies;
+
+	/** Dependency names, resolved from parameter annotations on first use. */
+	private String[] dependencyNames;
 	
 	/**
 	 * Constructor.
@@ -54,7 +60,7 @@ public class MethodProvider<T> extends Provider<T> {
 		Bind bindAnnotation = method.getAnnotation(Bind.class);
 		final String bindingName = bindAnnotation.value();
 		this.name = (bindingName == null || bindingName.length() == 0 ? method.getName() : bindingName);
-		setCached(bindAnnotation.cache());
+		setBinding(bindAnnotation);
 	}
 
 	/**
@@ -97,16 +103,69 @@ public class MethodProvider<T> extends Provider<T> {
 	@Override
 	Object get(Object[] dependencyValues) {
 		try {
-			return method.invoke(sourceModule, dependencyValues);
+			return invoker().invoke(dependencyValues);
+		} catch (Throwable e) {
+			throw invocationError(dependencyValues, e);
+		}
+	}
+
+	@Override
+	Object get(Object dependency0) {
+		try {
+			return invoker().invoke(dependency0);
 		} catch (Throwable e) {
-			throw new RuntimeException(
-					String.format("Error invoking method %s\nwith arguments %s", method, Fluf.arrayToString(dependencyValues)), e);
+			throw invocationError(new Object[] { dependency0 }, e);
 		}
 	}
+
+	@Override
+	Object get(Object dependency0, Object dependency1) {
+		try {
+			return invoker().invoke(dependency0, dependency1);
+		} catch (Throwable e) {
+			throw invocationError(new Object[] { dependency0, dependency1 }, e);
+		}
+	}
+
+	@Override
+	Object get(Object dependency0, Object dependency1, Object dependency2) {
+		try {
+			return invoker().invoke(dependency0, dependency1, dependency2);
+		} catch (Throwable e) {
+			throw invocationError(new Object[] { dependency0, dependency1, dependency2 }, e);
+		}
+	}
+
+	private MethodInvoker invoker() {
+		MethodInvoker current = this.invoker;
+		if (current == null) {
+			current = MethodInvoker.create(sourceModule, method);
+			this.invoker = current;
+		}
+		return current;
+	}
+
+	private RuntimeException invocationError(Object[] dependencyValues, Throwable e) {
+		return new RuntimeException(
+				String.format("Error invoking method %s\nwith arguments %s", method, Fluf.arrayToString(dependencyValues)), e);
+	}
 	
 	@Override
 	String getDependencyName(int pos) {
-		final Annotation[] annot = method.getParameterAnnotations()[pos];
+		String[] names = this.dependencyNames;
+		if (names == null) {
+			// getParameterAnnotations() returns a new copy every time, read them only once
+			final Annotation[][] annotations = method.getParameterAnnotations();
+			names = new String[annotations.length];
+			for (int i = 0; i < annotations.length; i++) {
+				names[i] = bindingName(annotations[i]);
+			}
+			this.dependencyNames = names;
+		}
+		return names[pos];
+	}
+
+	private static String bindingName(Annotation[] annot) {
 		for (Annotation a : annot) {
 			if (a.annotationType().equals(Bind.class)) {
 				final String value = ((Bind)a).value();
@@ -62,9 +62,16 @@ public abstract class Module {
 	}
 	
 	/**
-	 * Binds all the module's provider methods.
+	 * Binds all the module's provider methods. Uses the module class's generated
+	 * {@link ModuleBinder} if there is one, otherwise finds provider methods using reflection.
 	 */
 	protected void bindProviderMethods() {
+		@SuppressWarnings("unchecked")
+		final ModuleBinder<Module> binder = ModuleBinder.forClass((Class<Module>) getClass());
+		if (binder != null) {
+			binder.bindProviders(this);
+			return;
+		}
 		final List<Method> processed = new ArrayList<Method>();
 		for (Class<?> c = getClass(); c != null; c = c.getSuperclass()) {
 			for (Method m : c.getDeclaredMethods()) {
@@ -0,0 +1,176 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Type;
+
+/**
+ * Binds the provider methods of a {@link Module} class without reflection. Binders are
+ * generated at compile time by the {@code fluf-processor} annotation processor, one for every
+ * {@link Module} subclass, and are used by {@link Module#bindProviderMethods()} instead of
+ * scanning the module's methods whenever a binder is present.
+ * <p>
+ * A binder of class {@code com.acme.Outer.AppModule} is named
+ * {@code com.acme.Outer_AppModule_FlufBinder}.
+ * 
+ * @param <M> the module type
+ */
+public abstract class ModuleBinder<M extends Module> {
+
+	/** Suffix of generated binder class names. */
+	public static final String SUFFIX = "_FlufBinder";
+
+	/** Binder of every {@link Module} class, {@link #NONE} if the class has no generated binder. */
+	@SuppressWarnings("rawtypes")
+	private static final ClassValue<ModuleBinder> BINDERS = new ClassValue<ModuleBinder>() {
+		@Override
+		protected ModuleBinder computeValue(Class<?> moduleClass) {
+			return load(moduleClass);
+		}
+	};
+
+	/** Placeholder for module classes without a binder. */
+	@SuppressWarnings("rawtypes")
+	private static final ModuleBinder NONE = new ModuleBinder() {
+		@Override
+		protected void bindProviders(Module module) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected Object invoke(Module module, int index, Object[] args) {
+			throw new UnsupportedOperationException();
+		}
+	};
+
+	/**
+	 * Binds all provider methods of the given module, usually by calling
+	 * {@link #bind(Module, int, String, Type, Type[], String[], String, Object...)}
+	 * for each of them.
+	 * 
+	 * @param module the module
+	 */
+	protected abstract void bindProviders(M module);
+
+	/**
+	 * Invokes a provider method of the given module.
+	 * 
+	 * @param module the module
+	 * @param index index of the provider method, as given to
+	 * {@link #bind(Module, int, String, Type, Type[], String[], String, Object...)}
+	 * @param args dependency values
+	 * @return the provided instance, null for void methods
+	 * @throws Throwable anything the provider method throws
+	 */
+	protected abstract Object invoke(M module, int index, Object[] args) throws Throwable;
+
+	/**
+	 * Invokes a provider method with a single parameter. Generated binders override this
+	 * and its overloads for methods with up to three parameters, so that factory methods
+	 * can call them without an argument array.
+	 * 
+	 * @param module the module
+	 * @param index index of the provider method
+	 * @param arg0 the dependency value
+	 * @return the provided instance, null for void methods
+	 * @throws Throwable anything the provider method throws
+	 */
+	protected Object invoke(M module, int index, Object arg0) throws Throwable {
+		return invoke(module, index, new Object[] { arg0 });
+	}
+
+	/**
+	 * Invokes a provider method with two parameters.
+	 * 
+	 * @see #invoke(Module, int, Object)
+	 */
+	protected Object invoke(M module, int index, Object arg0, Object arg1) throws Throwable {
+		return invoke(module, index, new Object[] { arg0, arg1 });
+	}
+
+	/**
+	 * Invokes a provider method with three parameters.
+	 * 
+	 * @see #invoke(Module, int, Object)
+	 */
+	protected Object invoke(M module, int index, Object arg0, Object arg1, Object arg2) throws Throwable {
+		return invoke(module, index, new Object[] { arg0, arg1, arg2 });
+	}
+
+	/**
+	 * Binds a single provider method of the given module.
+	 * 
+	 * @param module the module
+	 * @param index index of the method passed back to {@link #invoke(Module, int, Object[])}
+	 * @param methodName name of the provider method
+	 * @param type generic return type of the method
+	 * @param dependencies generic parameter types of the method
+	 * @param dependencyNames {@link Bind} values of the parameters, null for unnamed parameters
+	 * @param signature method signature used in messages
+	 * @param attributes explicitly set {@link Bind} attributes as name and value pairs
+	 */
+	protected final void bind(M module, int index, String methodName, Type type, Type[] dependencies,
+			String[] dependencyNames, String signature, Object...attributes) {
+		Bind binding = new BindAttributes(attributes);
+		module.bindProvider(new GeneratedProvider<Object>(this, module, index, methodName, type,
+				dependencies, dependencyNames, signature, binding));
+	}
+
+	/**
+	 * Returns the generated binder of a module class.
+	 * 
+	 * @param moduleClass the module class
+	 * @return the binder or null if the class has no generated binder
+	 */
+	@SuppressWarnings("unchecked")
+	static <M extends Module> ModuleBinder<M> forClass(Class<M> moduleClass) {
+		ModuleBinder<M> binder = BINDERS.get(moduleClass);
+		return (binder == NONE ? null : binder);
+	}
+
+	/**
+	 * Returns the name of a class generated for the given class. Generated classes are
+	 * top level classes in the same package, named after the class and its enclosing classes.
+	 * 
+	 * @param type the class
+	 * @param suffix suffix of the generated class name
+	 * @return the generated class name
+	 */
+	static String generatedName(Class<?> type, String suffix) {
+		final String name = type.getName();
+		final int pos = name.lastIndexOf('.');
+		return name.substring(0, pos + 1) + name.substring(pos + 1).replace('$', '_') + suffix;
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static ModuleBinder load(Class<?> moduleClass) {
+		if (moduleClass.isAnonymousClass() || moduleClass.isLocalClass()) {
+			return NONE;
+		}
+		final Class<?> binderClass;
+		try {
+			binderClass = Class.forName(generatedName(moduleClass, SUFFIX), true, moduleClass.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			return NONE;
+		}
+		try {
+			return (ModuleBinder) binderClass.getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot instantiate module binder " + binderClass, e);
+		}
+	}
+}
@@ -16,11 +16,26 @@ package fluf;
  * limitations under the License.
  */
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Provider instance. These providers are created from a {@link Module}'s binding methods.
@@ -37,12 +52,42 @@ public abstract class Provider<T> {
 	
 	private volatile Object result = UNINITIALIZED;
 
+	/** Lock held while the cached result is being created. */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Creation of the cached result in progress, null if there is none. */
+	private volatile Initialization initializing;
+
+	/** Asynchronous creation of the cached result, null unless {@link #getAsync()} started it. */
+	private final AtomicReference<CompletableFuture<Object>> initialization = new AtomicReference<CompletableFuture<Object>>();
+
+	/** Dependencies linked against the bindings of this provider's {@link Injector}. */
+	private volatile DependencyPlan plan;
+
 	/** Parent {@link Injector} used to resolve dependencies of this provider. */
 	private Injector injector;
 	
 	/** Flag indicating whether this provider caches its result. */
 	private boolean isCached;
 
+	/** Scope of this provider's instances or null if it is unscoped. */
+	private Scope scope;
+
+	/** Instances of every thread if the scope is a {@link ThreadScope}, null otherwise. */
+	private ThreadLocal<Object> threadInstances;
+
+	/** Cache with an expiry or reference policy or null if the result is cached forever or not at all. */
+	private ProviderCache cache;
+
+	/** Pool of idle instances or null if this provider is not pooled. */
+	private InstancePool pool;
+
+	/** Binding key of this provider, created on first use. */
+	private Key<T> key;
+
+	/** Keys of this provider's dependencies, created on first use. */
+	private Key<?>[] dependencyKeys;
+
 	/**
 	 * Returns the name of this provider.
 	 * 
@@ -82,6 +127,35 @@ public abstract class Provider<T> {
 	 */
 	abstract Object get(Object[] dependencyValues);
 
+	/**
+	 * Invokes this provider with a single dependency value. Providers that can call their
+	 * method without an argument array override this, others pass the value in an array.
+	 * 
+	 * @param dependency0 the dependency instance
+	 * @return object instance whose actual type is the type of this provider
+	 */
+	Object get(Object dependency0) {
+		return get(new Object[] { dependency0 });
+	}
+
+	/**
+	 * Invokes this provider with two dependency values.
+	 * 
+	 * @see #get(Object)
+	 */
+	Object get(Object dependency0, Object dependency1) {
+		return get(new Object[] { dependency0, dependency1 });
+	}
+
+	/**
+	 * Invokes this provider with three dependency values.
+	 * 
+	 * @see #get(Object)
+	 */
+	Object get(Object dependency0, Object dependency1, Object dependency2) {
+		return get(new Object[] { dependency0, dependency1, dependency2 });
+	}
+
 	/**
 	 * Provides an instance of type matching this provider's type. Depending on
 	 * configuration, some providers might return a new instance on every {@link #get()}
@@ -91,21 +165,444 @@ public abstract class Provider<T> {
 	 */
 	@SuppressWarnings("unchecked")
 	public T get() {
+		if (scope != null) {
+			return scope.get(this);
+		}
+		if (cache != null) {
+			return (T) cache.get();
+		}
+		if (pool != null) {
+			return (T) pool.acquire();
+		}
 		Object value = result;
 		if (!isCached) {
-			value = get(resolveDependencyValues());
+			value = createInstance();
 		} else if (value == UNINITIALIZED) {
-			synchronized (this) {
-				value = result;
-				if (value == UNINITIALIZED) {
-					value = get(resolveDependencyValues());
-					result = value;
+			value = initialize();
+		} else {
+			onCacheHit();
+		}
+		return (T) value;
+	}
+
+	/**
+	 * Provides several instances, like calling {@link #get()} {@code count} times. Instances of
+	 * a provider that is not cached, scoped or pooled are created in one loop that checks the
+	 * {@link DependencyPlan} once, and values of the {@link Injector}, injected {@link Provider}s
+	 * and cached dependencies are resolved once and shared by all instances. Other dependencies
+	 * are resolved for every instance.
+	 * 
+	 * @param count number of instances
+	 * @return list of {@code count} instances of type {@code T}
+	 * @throws IllegalArgumentException if count is negative
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> getMany(int count) {
+		final List<T> instances = new ArrayList<T>(checkCount(count));
+		if (scope != null || cache != null || pool != null || isCached) {
+			for (int i = 0; i < count; i++) {
+				instances.add(get());
+			}
+			return instances;
+		}
+		final DependencyPlan current = getDependencyPlan();
+		Object[] values = null;
+		for (int i = 0; i < count; i++) {
+			final ResolutionScope.Resolution resolution = ResolutionScope.enter();
+			try {
+				values = current.resolve(values);
+				instances.add((T) provide(values));
+			} finally {
+				if (resolution != null) {
+					resolution.exit();
 				}
 			}
 		}
-		return (T) value;
+		return instances;
+	}
+
+	private static int checkCount(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count must not be negative: " + count);
+		}
+		return count;
+	}
+
+	/**
+	 * Creates the cached result. Threads waiting for another thread to create it park
+	 * on a {@link ReentrantLock}, which unlike a monitor does not pin a virtual thread's carrier.
+	 * 
+	 * @return the cached result
+	 * @throws RuntimeException if creating the result requires the result itself
+	 */
+	private Object initialize() {
+		return initialize(null);
+	}
+
+	/**
+	 * Creates the cached result unless another thread did meanwhile. A thread about to wait
+	 * for an initialization that it is itself part of, directly or through
+	 * {@link #getAsync()} and {@link Lazy} instances handed to other threads, fails instead of
+	 * waiting forever.
+	 * 
+	 * @param dependencyValues resolved dependency values or null to resolve them while
+	 * holding the lock
+	 * @return the cached result
+	 * @throws RuntimeException if creating the result requires the result itself
+	 */
+	private Object initialize(Object[] dependencyValues) {
+		final Initialization running = initializing;
+		if (running != null && running.encloses(Initialization.current())) {
+			throw new RuntimeException(String.format("Dependency cycle: %s requires itself while being initialized", this));
+		}
+		lock.lock();
+		try {
+			Object value = result;
+			if (value == UNINITIALIZED) {
+				onCacheMiss();
+				final Initialization outer = Initialization.current();
+				final Initialization started = new Initialization(this, outer);
+				initializing = started;
+				Initialization.set(started);
+				try {
+					value = (dependencyValues == null ? createInstance() : provide(dependencyValues));
+				} finally {
+					Initialization.set(outer);
+					initializing = null;
+				}
+				result = value;
+			} else if (dependencyValues == null) {
+				onCacheHit();
+			}
+			return value;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Invokes this provider with the given dependency values, notifying the
+	 * {@link Injector}'s {@link InjectorListener} of the provision and its duration
+	 * and recording a Flight Recorder event.
+	 * 
+	 * @param dependencyValues dependency instances
+	 * @return the provided instance
+	 */
+	final Object provide(Object[] dependencyValues) {
+		return provide(0, dependencyValues, null, null, null);
+	}
+
+	/**
+	 * Invokes this provider either with the dependency value array or with up to three
+	 * dependency values passed directly.
+	 * 
+	 * @param arity number of values passed directly, 0 to use the array
+	 * @param dependencyValues dependency instances, used if arity is 0
+	 * @return the provided instance
+	 */
+	private Object provide(int arity, Object[] dependencyValues, Object dependency0, Object dependency1, Object dependency2) {
+		final InjectorListener listener = injector.getListener();
+		final Object event = EventRecorder.INSTANCE.beginProvision();
+		final long start = (listener == null ? 0 : System.nanoTime());
+		final Object value;
+		switch (arity) {
+		case 1:
+			value = get(dependency0);
+			break;
+		case 2:
+			value = get(dependency0, dependency1);
+			break;
+		case 3:
+			value = get(dependency0, dependency1, dependency2);
+			break;
+		default:
+			value = get(dependencyValues);
+		}
+		if (listener != null) {
+			listener.onProvision(this, System.nanoTime() - start);
+		}
+		EventRecorder.INSTANCE.endProvision(event, this);
+		return value;
+	}
+
+	/**
+	 * Invokes this provider for a factory method of a proxy with the method's argument values.
+	 * 
+	 * @param argValues the argument values, used as dependency values
+	 * @return the provided instance
+	 */
+	final Object provideForProxy(Object[] argValues) {
+		onProxyCall();
+		return provideInResolution(0, argValues, null, null, null);
+	}
+
+	/**
+	 * Invokes this provider for a factory method with a single argument, which generated
+	 * factories pass without an array.
+	 * 
+	 * @param arg0 the argument value, used as dependency value
+	 * @return the provided instance
+	 */
+	final Object provideForProxy(Object arg0) {
+		onProxyCall();
+		return provideInResolution(1, null, arg0, null, null);
+	}
+
+	/**
+	 * Invokes this provider for a factory method with two arguments.
+	 * 
+	 * @see #provideForProxy(Object)
+	 */
+	final Object provideForProxy(Object arg0, Object arg1) {
+		onProxyCall();
+		return provideInResolution(2, null, arg0, arg1, null);
+	}
+
+	/**
+	 * Invokes this provider for a factory method with three arguments.
+	 * 
+	 * @see #provideForProxy(Object)
+	 */
+	final Object provideForProxy(Object arg0, Object arg1, Object arg2) {
+		onProxyCall();
+		return provideInResolution(3, null, arg0, arg1, arg2);
+	}
+
+	/**
+	 * Invokes this provider for a batch factory method of a proxy, creating every instance
+	 * with the same argument values.
+	 * 
+	 * @param count number of instances
+	 * @param argValues the remaining argument values, used as dependency values
+	 * @return list of the provided instances
+	 * @throws IllegalArgumentException if count is negative
+	 */
+	final List<Object> provideManyForProxy(int count, Object[] argValues) {
+		onProxyCall();
+		final List<Object> instances = new ArrayList<Object>(checkCount(count));
+		for (int i = 0; i < count; i++) {
+			instances.add(provideInResolution(0, argValues, null, null, null));
+		}
+		return instances;
+	}
+
+	/**
+	 * Invokes this provider within a {@link ResolutionScope} resolution, which is started
+	 * unless this instance is a dependency of another one.
+	 */
+	private Object provideInResolution(int arity, Object[] dependencyValues, Object dependency0, Object dependency1, Object dependency2) {
+		final ResolutionScope.Resolution resolution = ResolutionScope.enter();
+		if (resolution == null) {
+			return provide(arity, dependencyValues, dependency0, dependency1, dependency2);
+		}
+		try {
+			return provide(arity, dependencyValues, dependency0, dependency1, dependency2);
+		} finally {
+			resolution.exit();
+		}
+	}
+
+	/**
+	 * Notifies the {@link Injector}'s {@link InjectorListener} of a factory method call.
+	 */
+	private void onProxyCall() {
+		final InjectorListener listener = injector.getListener();
+		if (listener != null) {
+			listener.onProxyCall(this);
+		}
+	}
+
+	/**
+	 * Notifies the {@link Injector}'s {@link InjectorListener} that a cached instance was returned.
+	 */
+	final void onCacheHit() {
+		final InjectorListener listener = injector.getListener();
+		if (listener != null) {
+			listener.onCacheHit(this);
+		}
+	}
+
+	/**
+	 * Notifies the {@link Injector}'s {@link InjectorListener} that a cached instance has to be created.
+	 */
+	final void onCacheMiss() {
+		final InjectorListener listener = injector.getListener();
+		if (listener != null) {
+			listener.onCacheMiss(this);
+		}
 	}
 	
+	/**
+	 * Provides an instance asynchronously. Dependencies are resolved concurrently and
+	 * the instance is created on the {@link Injector#getExecutor() injector's executor}
+	 * once all of them are available. Scoped providers are resolved on the calling thread
+	 * since their scope can be bound to it.
+	 * 
+	 * @return future of an instance of type {@code T}
+	 */
+	@SuppressWarnings("unchecked")
+	public CompletableFuture<T> getAsync() {
+		try {
+			if (scope != null) {
+				return CompletableFuture.completedFuture(get());
+			}
+			final Executor executor = Initialization.propagate(getInjector().getExecutor());
+			if (cache != null || pool != null) {
+				return CompletableFuture.supplyAsync(new Supplier<T>() {
+					@Override
+					public T get() {
+						return Provider.this.get();
+					}
+				}, executor);
+			}
+			if (!isCached) {
+				return (CompletableFuture<T>) createAsync(executor);
+			}
+			final Object value = result;
+			if (value != UNINITIALIZED) {
+				onCacheHit();
+				return CompletableFuture.completedFuture((T) value);
+			}
+			return (CompletableFuture<T>) initializeAsync(executor);
+		} catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+	}
+
+	/**
+	 * Creates a new instance once all dependencies are resolved asynchronously.
+	 */
+	private CompletableFuture<Object> createAsync(Executor executor) {
+		return getDependencyPlan().resolveAsync().thenApplyAsync(new Function<Object[], Object>() {
+			@Override
+			public Object apply(Object[] dependencyValues) {
+				return provide(dependencyValues);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Creates the cached result asynchronously. Concurrent callers share one future,
+	 * a failed initialization can be retried by the next call.
+	 */
+	private CompletableFuture<Object> initializeAsync(Executor executor) {
+		final CompletableFuture<Object> current = initialization.get();
+		if (current != null) {
+			return current;
+		}
+		final CompletableFuture<Object> created = new CompletableFuture<Object>();
+		if (!initialization.compareAndSet(null, created)) {
+			return initialization.get();
+		}
+		getDependencyPlan().resolveAsync().thenApplyAsync(new Function<Object[], Object>() {
+			@Override
+			public Object apply(Object[] dependencyValues) {
+				return initialize(dependencyValues);
+			}
+		}, executor).whenComplete(new BiConsumer<Object, Throwable>() {
+			@Override
+			public void accept(Object value, Throwable error) {
+				if (error != null) {
+					initialization.set(null);
+					created.completeExceptionally(error);
+				} else {
+					created.complete(value);
+				}
+			}
+		});
+		return created;
+	}
+
+	/**
+	 * Returns a future of the value of the future the given future completes with.
+	 * 
+	 * @param future future of a {@link CompletableFuture}
+	 * @return future of the inner future's value
+	 */
+	static CompletableFuture<Object> flatten(CompletableFuture<?> future) {
+		return future.thenCompose(new Function<Object, CompletableFuture<Object>>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public CompletableFuture<Object> apply(Object inner) {
+				return (CompletableFuture<Object>) inner;
+			}
+		});
+	}
+
+	/**
+	 * Returns a future completed exceptionally with the given error.
+	 * 
+	 * @param error the error
+	 * @param <T> future type
+	 * @return the failed future
+	 */
+	static <T> CompletableFuture<T> failedFuture(Throwable error) {
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(error);
+		return future;
+	}
+
+	/**
+	 * Creates a new instance ignoring this provider's cache and scope.
+	 * 
+	 * @return new instance of type {@code T}
+	 */
+	@SuppressWarnings("unchecked")
+	T create() {
+		return (T) createInstance();
+	}
+
+	/**
+	 * Resolves the dependencies and invokes this provider within a {@link ResolutionScope}
+	 * resolution, which is started unless this instance is a dependency of another one.
+	 * 
+	 * @return the provided instance
+	 */
+	private Object createInstance() {
+		final ResolutionScope.Resolution resolution = ResolutionScope.enter();
+		if (resolution == null) {
+			return provide(resolveDependencyValues());
+		}
+		try {
+			return provide(resolveDependencyValues());
+		} finally {
+			resolution.exit();
+		}
+	}
+
+	/**
+	 * Returns the binding key of this provider, made of its type and name.
+	 * 
+	 * @return the key
+	 */
+	@SuppressWarnings("unchecked")
+	public Key<T> getKey() {
+		Key<T> current = this.key;
+		if (current == null) {
+			current = (Key<T>) Key.get(getType(), getName());
+			this.key = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Returns the keys of this provider's dependencies, in the order of {@link #getDependencies()}.
+	 * 
+	 * @return the dependency keys
+	 */
+	private Key<?>[] getDependencyKeys() {
+		Key<?>[] current = this.dependencyKeys;
+		if (current == null) {
+			final Type[] types = getDependencies();
+			current = new Key<?>[types.length];
+			for (int i = 0; i < types.length; i++) {
+				current[i] = Key.get(types[i], getDependencyName(i));
+			}
+			this.dependencyKeys = current;
+		}
+		return current;
+	}
+
 	/**
 	 * Sets this {@link Provider}'s {@link Injector}.
 	 * 
@@ -143,36 +640,304 @@ public abstract class Provider<T> {
 		return this.isCached;
 	}
 	
+	/**
+	 * Sets this {@link Provider}'s {@link Scope}.
+	 * 
+	 * @param scope the scope or null if this provider is unscoped
+	 */
+	protected void setScope(Scope scope) {
+		this.scope = scope;
+		this.threadInstances = (scope instanceof ThreadScope ? new ThreadLocal<Object>() : null);
+	}
+
+	/**
+	 * Returns the instances of this provider held by a {@link ThreadScope}. They are owned
+	 * by this provider, so they can be collected together with it.
+	 * 
+	 * @return the instances or null if this provider is not thread scoped
+	 */
+	final ThreadLocal<Object> getThreadInstances() {
+		return this.threadInstances;
+	}
+
+	/**
+	 * Returns this {@link Provider}'s {@link Scope}.
+	 * 
+	 * @return the scope or null if this provider is unscoped
+	 */
+	protected Scope getScope() {
+		return this.scope;
+	}
+
+	/**
+	 * Configures caching and scope of this provider from its {@link Bind} attributes.
+	 * 
+	 * @param binding the binding attributes
+	 * @throws RuntimeException if both caching and a scope are requested
+	 */
+	void setBinding(Bind binding) {
+		final Scope bindingScope = Scope.forClass(binding.scope());
+		if (binding.cache() && bindingScope != null) {
+			throw new RuntimeException(String.format("Provider %s cannot be both cached and scoped", this));
+		}
+		final boolean policy = binding.ttl() > 0 || binding.refreshAhead() || binding.reference() != CacheReference.STRONG;
+		if (policy && !binding.cache()) {
+			throw new RuntimeException(String.format("Provider %s must be cached to use ttl, refreshAhead or reference", this));
+		}
+		if (binding.refreshAhead() && binding.ttl() <= 0) {
+			throw new RuntimeException(String.format("Provider %s uses refreshAhead without a ttl", this));
+		}
+		if (binding.pool() < 0 || (binding.pool() > 0 && (binding.cache() || bindingScope != null))) {
+			throw new RuntimeException(String.format("Provider %s must not be cached or scoped to use a pool", this));
+		}
+		setCached(binding.cache());
+		setScope(bindingScope);
+		this.cache = (policy ? new ProviderCache(this, binding.ttl(), binding.refreshAhead(), binding.reference()) : null);
+		this.pool = (binding.pool() > 0 ? new InstancePool(this, binding.pool(), poolValidator(binding)) : null);
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static Predicate poolValidator(Bind binding) {
+		final Class<? extends Predicate> type = binding.poolValidator();
+		if (type == Predicate.class) {
+			return null;
+		}
+		try {
+			final Constructor<? extends Predicate> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return constructor.newInstance();
+		} catch (Exception e) {
+			throw new RuntimeException(String.format("Cannot create pool validator %s", type.getName()), e);
+		}
+	}
+
+	/**
+	 * Leases an instance from this provider. Closing the lease returns a pooled provider's
+	 * instance to the pool, for other providers it has no effect.
+	 * 
+	 * @return the lease
+	 */
+	public Lease<T> lease() {
+		return new Lease<T>(this, get());
+	}
+
+	/**
+	 * Returns an instance to this provider's pool. Has no effect if the provider is not pooled.
+	 * 
+	 * @param instance the instance obtained from this provider
+	 */
+	public void release(T instance) {
+		if (pool != null) {
+			pool.release(instance);
+		}
+	}
+
+	/**
+	 * Returns statistics of this provider's cache if it was bound with a
+	 * {@link Bind#ttl() ttl}, {@link Bind#refreshAhead() refreshAhead} or
+	 * {@link Bind#reference() reference} other than {@link CacheReference#STRONG}.
+	 * 
+	 * @return the cache statistics or null if this provider has no such cache
+	 */
+	public CacheStats getCacheStats() {
+		return (cache == null ? null : cache.getStats());
+	}
+
+	/**
+	 * Returns true if every {@link #get()} call returns the same instance, i.e. this provider
+	 * is cached without an expiring or collectable cache.
+	 * 
+	 * @return true if this provider's instance never changes
+	 */
+	boolean isSingleton() {
+		return isCached && cache == null && scope == null && pool == null;
+	}
+
+	/**
+	 * Returns true if this {@link Provider} caches its result and the result was already created.
+	 * 
+	 * @return true if the cached result is available
+	 */
+	boolean isInitialized() {
+		return (cache != null ? cache.isInitialized() : this.result != UNINITIALIZED);
+	}
+
 	/**
 	 * Resolves values of {@link Provider}'s dependencies.
 	 * 
 	 * @return array of dependency values
 	 */
 	protected Object[] resolveDependencyValues() {
-		final int count = getDependencies().length;
-		final Object[] argValues = new Object[count];
-		for (int i = 0; i < count; i++) {
-			final Type type = getDependencies()[i];
-			final String name = getDependencyName(i);
+		return getDependencyPlan().resolve();
+	}
+
+	/**
+	 * Returns this provider's {@link DependencyPlan}, linking a new one if the bindings
+	 * of this provider's {@link Injector} changed since the last plan was linked.
+	 * 
+	 * @return the dependency plan
+	 * @throws RuntimeException describing a dependency cycle
+	 */
+	DependencyPlan getDependencyPlan() {
+		final DependencyPlan current = this.plan;
+		if (current != null && current.isAcyclic() && current.isLinkedTo(getInjector())) {
+			return current;
+		}
+		checkAcyclic(this, Collections.newSetFromMap(new IdentityHashMap<Provider<?>, Boolean>()), new ArrayList<Provider<?>>());
+		return linkedPlan();
+	}
+
+	/**
+	 * Returns this provider's current plan, linking and storing a new one if it is stale,
+	 * without checking it for cycles.
+	 */
+	private DependencyPlan linkedPlan() {
+		DependencyPlan current = this.plan;
+		if (current == null || !current.isLinkedTo(getInjector())) {
+			current = linkDependencies();
+			this.plan = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Checks that no provider the given provider's plan calls, directly or through other
+	 * providers, depends on a provider on the given path. Injected {@link Provider}s are not
+	 * followed. Plans found acyclic are marked, so every plan is only walked once after
+	 * the bindings change.
+	 * 
+	 * @param provider the provider to check
+	 * @param path providers depending on the checked provider, starting at the provider being resolved
+	 * @param onPath the providers on the path
+	 * @throws RuntimeException describing the dependency cycle
+	 */
+	private static void checkAcyclic(Provider<?> provider, Set<Provider<?>> onPath, List<Provider<?>> path) {
+		final DependencyPlan linked = provider.linkedPlan();
+		if (linked.isAcyclic()) {
+			return;
+		}
+		onPath.add(provider);
+		path.add(provider);
+		for (Provider<?> dependency : linked.getProviders()) {
+			if (onPath.contains(dependency)) {
+				final StringBuilder cycle = new StringBuilder();
+				for (Provider<?> p : path.subList(path.indexOf(dependency), path.size())) {
+					cycle.append(p).append("\n -> ");
+				}
+				throw new RuntimeException(String.format("Dependency cycle:\n%s%s", cycle, dependency));
+			}
+			checkAcyclic(dependency, onPath, path);
+		}
+		path.remove(path.size() - 1);
+		onPath.remove(provider);
+		linked.markAcyclic();
+	}
+
+	/**
+	 * Links every dependency of this provider against its {@link Injector}'s current bindings.
+	 * 
+	 * @return the linked dependency plan
+	 */
+	private DependencyPlan linkDependencies() {
+		final Injector injector = getInjector();
+		// read the version before searching so that bindings added meanwhile invalidate the plan
+		final int version = injector.getVersion();
+		final Type[] types = getDependencies();
+		final Key<?>[] keys = getDependencyKeys();
+		final DependencyPlan.Dependency[] linked = new DependencyPlan.Dependency[types.length];
+		for (int i = 0; i < types.length; i++) {
+			final Type type = types[i];
+			final String name = keys[i].getName();
 			if (type == Injector.class && name == null) {
-				argValues[i] = getInjector();
+				linked[i] = new DependencyPlan.ConstantDependency(injector);
 				continue;
 			}
-			if (type == Provider.class) {
-				Provider<?> provider = getInjector().find(getParametersType(type, 0), name, null);
-				argValues[i] = provider;
+			if (rawType(type) == Lazy.class) {
+				linked[i] = new DependencyPlan.LazyDependency(injector, Key.get(getParametersType(type, 0), name), this);
 				continue;
 			}
-			Provider<?> provider = getInjector().find(type, name, null);
+			if (rawType(type) == Provider.class) {
+				Provider<?> provider = injector.find(Key.get(getParametersType(type, 0), name), null);
+				linked[i] = new DependencyPlan.ConstantDependency(provider);
+				continue;
+			}
+			Provider<?> provider = injector.find(keys[i], null);
 			provider = (this == provider ? null : provider); 
-			if (provider == null && isCollection(type)) {
-				argValues[i] = collectFromAllProviders(type, name);
+			if (provider == null && isMultibinding(type)) {
+				linked[i] = linkMultibinding(type, name);
 				continue;
 			}
-			checkNotNull(provider, String.format("Provider[type: %s, name: %s, args: %s] ", type, name, getDependencies()));
-			argValues[i] = provider.get();
+			if (provider == null) {
+				// a value of a type can come from a provider of its future and the other way around
+				final Provider<?> future = injector.find(
+						Key.get(Types.parameterized(CompletableFuture.class, keys[i].getType()), name), null);
+				if (future != null && future != this) {
+					linked[i] = new DependencyPlan.FutureDependency(future);
+					continue;
+				}
+				if (rawType(type) == CompletableFuture.class && type instanceof ParameterizedType) {
+					final Provider<?> value = injector.find(Key.get(getParametersType(type, 0), name), null);
+					if (value != null && value != this) {
+						linked[i] = new DependencyPlan.AsyncDependency(value);
+						continue;
+					}
+				}
+			}
+			checkNotNull(provider, String.format("Provider[type: %s, name: %s, args: %s] ", type, name, types));
+			linked[i] = new DependencyPlan.InstanceDependency(provider);
+		}
+		return new DependencyPlan(version, linked);
+	}
+
+	/**
+	 * Returns true if the type is a {@link Collection}, {@link Iterable}, {@link Stream} or
+	 * {@code Map<String, T>} dependency that can be resolved from all providers of its element type.
+	 */
+	private boolean isMultibinding(Type type) {
+		final Class<?> raw = rawType(type);
+		if (raw == Map.class) {
+			return type instanceof ParameterizedType && getParametersType(type, 0) == String.class;
+		}
+		return raw == Iterable.class || raw == Stream.class || isCollection(type);
+	}
+
+	/**
+	 * Links a dependency on all providers of the type's element type, or on the providers
+	 * themselves if the element type is a {@link Provider}. {@link Iterable} and {@link Stream}
+	 * dependencies create instances as they are iterated, {@link List} dependencies are
+	 * resolved in binding order and other collections are resolved to sets.
+	 * {@code Map<String, T>} dependencies are keyed by provider name and create instances
+	 * when they are read.
+	 * 
+	 * @param type the multibinding type
+	 * @param name the name qualifier
+	 * @return the linked dependency
+	 */
+	@SuppressWarnings("rawtypes")
+	private DependencyPlan.Dependency linkMultibinding(Type type, String name) {
+		final Class<?> raw = rawType(type);
+		final Type element = getParametersType(type, (raw == Map.class ? 1 : 0));
+		final boolean ofProviders = (rawType(element) == Provider.class);
+		final Collection<Provider> providers = matchingProviders(
+				(ofProviders ? getParametersType(element, 0) : element), name);
+		if (raw == Map.class) {
+			final Map<String, Provider> byName = ProviderMap.byName(providers);
+			return new DependencyPlan.ConstantDependency(ofProviders ?
+					Collections.unmodifiableMap(byName) : new ProviderMap(-1, byName));
+		}
+		if (raw == Stream.class) {
+			return new DependencyPlan.StreamDependency(providers, ofProviders);
+		}
+		final boolean list = (raw == Iterable.class || !raw.isAssignableFrom(LinkedHashSet.class));
+		if (ofProviders) {
+			return new DependencyPlan.ConstantDependency(list ?
+					Collections.unmodifiableList(new ArrayList<Provider>(providers))
+					: Collections.unmodifiableSet(new LinkedHashSet<Provider>(providers)));
+		}
+		if (raw == Iterable.class) {
+			return new DependencyPlan.ConstantDependency(new DependencyPlan.LazyValues(providers));
 		}
-		return argValues;
+		return new DependencyPlan.CollectionDependency(providers, list);
 	}
 
 	/**
@@ -192,6 +957,21 @@ public abstract class Provider<T> {
 		return false;
 	}
 
+	/**
+	 * Returns the raw class of a {@link Class} or {@link ParameterizedType}, null for any other type.
+	 * 
+	 * @param type the type
+	 * @return raw class of the type or null
+	 */
+	static Class<?> rawType(Type type) {
+		if (type instanceof Class) {
+			return (Class<?>) type;
+		} else if (type instanceof ParameterizedType) {
+			return rawType(((ParameterizedType) type).getRawType());
+		}
+		return null;
+	}
+
 	/**
 	 * Resolves the {@code n'th} parameter's type given a ParameterizedType argument.
 	 * 
@@ -223,16 +1003,28 @@ public abstract class Provider<T> {
 	 * @return a collection of matching {@link Provider}s
 	 */
 	protected Collection<?> collectFromAllProviders(Type type, String name) {
-		Injector injector = getInjector();
-		@SuppressWarnings("rawtypes")
-		Collection<Provider> providers = injector.findMatchingProviders(getParametersType(type, 0), name, null);
-		Set<Object> all = new HashSet<Object>();
-		for (Provider<?> mp : providers) {
+		return (Collection<?>) new DependencyPlan.CollectionDependency(
+				matchingProviders(getParametersType(type, 0), name), false).resolve();
+	}
+
+	/**
+	 * Returns all {@link Provider}s, except this one, matching the given element type
+	 * and name, in binding order.
+	 * 
+	 * @param element the element type
+	 * @param name the {@link Provider}'s name identifier
+	 * @return a collection of matching {@link Provider}s
+	 */
+	@SuppressWarnings("rawtypes")
+	private Collection<Provider> matchingProviders(Type element, String name) {
+		Collection<Provider> providers = getInjector().findAllMatchingProviders(Key.get(element, name), null);
+		Collection<Provider> matching = new ArrayList<Provider>(providers.size());
+		for (Provider mp : providers) {
 			if (this != mp) {
-				all.add(mp.get());
+				matching.add(mp);
 			}
 		}
-		return all;
+		return matching;
 	}
 	
 	/**
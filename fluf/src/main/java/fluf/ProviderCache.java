@@ -0,0 +1,248 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache of a {@link Provider} bound with a time to live, refresh-ahead or a
+ * {@link CacheReference} other than {@link CacheReference#STRONG}.
+ * <p>
+ * Valid instances are read without locking. An expired instance is created again by the
+ * first caller while others wait for it, unless refresh-ahead is enabled, in which case
+ * the stale instance keeps being returned while a single refresh runs on the
+ * {@link Injector#getExecutor() injector's executor}.
+ */
+final class ProviderCache {
+
+	/** Returned by {@link Entry#value()} if the garbage collector dropped the instance. */
+	private static final Object CLEARED = new Object();
+
+	private final Provider<?> provider;
+
+	/** Time to live in nanoseconds, 0 if instances don't expire. */
+	private final long ttl;
+
+	private final boolean refreshAhead;
+
+	private final CacheReference reference;
+
+	/** Lock held while an instance is created by a caller. */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Creation of an instance by a caller in progress, null if there is none. */
+	private volatile Initialization initializing;
+
+	/** Set while a background refresh is scheduled or running. */
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
+	/** The cached instance, null until the first instance is created. */
+	private volatile Entry entry;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+	private final LongAdder refreshFailures = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param provider the cached provider
+	 * @param ttlMillis time to live in milliseconds, 0 if instances don't expire
+	 * @param refreshAhead whether expired instances are refreshed in the background
+	 * @param reference how the instance is referenced
+	 */
+	ProviderCache(Provider<?> provider, long ttlMillis, boolean refreshAhead, CacheReference reference) {
+		this.provider = provider;
+		this.ttl = ttlMillis * 1000000L;
+		this.refreshAhead = refreshAhead;
+		this.reference = reference;
+	}
+
+	/**
+	 * Returns the cached instance, creating it if there is none or it expired.
+	 * 
+	 * @return the instance
+	 */
+	Object get() {
+		final Entry current = this.entry;
+		if (current != null) {
+			final Object value = current.value();
+			if (value != CLEARED) {
+				if (!current.isExpired()) {
+					hits.increment();
+					provider.onCacheHit();
+					return value;
+				}
+				if (refreshAhead) {
+					hits.increment();
+					provider.onCacheHit();
+					refresh(current);
+					return value;
+				}
+			}
+		}
+		return load(current);
+	}
+
+	/**
+	 * Returns true if an instance was created.
+	 * 
+	 * @return true if initialized
+	 */
+	boolean isInitialized() {
+		return this.entry != null;
+	}
+
+	/**
+	 * Returns a snapshot of this cache's counters.
+	 * 
+	 * @return the cache statistics
+	 */
+	CacheStats getStats() {
+		return new CacheStats(hits.sum(), misses.sum(), refreshes.sum(), refreshFailures.sum(), evictions.sum());
+	}
+
+	/**
+	 * Creates a new instance unless another caller did meanwhile. Like
+	 * {@link Provider#get()} it detects an instance requiring itself also across threads,
+	 * e.g. through {@link Provider#getAsync()} or {@link Lazy}, instead of waiting forever.
+	 */
+	private Object load(Entry stale) {
+		final Initialization running = initializing;
+		if (running != null && running.encloses(Initialization.current())) {
+			throw new RuntimeException(String.format("Dependency cycle: %s requires itself while being initialized", provider));
+		}
+		lock.lock();
+		try {
+			final Entry current = this.entry;
+			if (current != stale) {
+				// another thread loaded a new instance meanwhile
+				final Object value = current.value();
+				if (value != CLEARED && !current.isExpired()) {
+					hits.increment();
+					provider.onCacheHit();
+					return value;
+				}
+			}
+			if (current != null) {
+				evictions.increment();
+			}
+			misses.increment();
+			provider.onCacheMiss();
+			final Initialization outer = Initialization.current();
+			final Initialization started = new Initialization(provider, outer);
+			initializing = started;
+			Initialization.set(started);
+			final Object value;
+			try {
+				value = provider.create();
+			} finally {
+				Initialization.set(outer);
+				initializing = null;
+			}
+			this.entry = new Entry(value);
+			return value;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Schedules a background refresh of the stale entry unless one is already running.
+	 */
+	private void refresh(final Entry stale) {
+		if (!refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		final Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					final Entry refreshed = new Entry(provider.create());
+					lock.lock();
+					try {
+						if (entry == stale) {
+							entry = refreshed;
+						}
+					} finally {
+						lock.unlock();
+					}
+					refreshes.increment();
+				} catch (Throwable e) {
+					// keep serving the stale instance, the next call schedules another refresh
+					refreshFailures.increment();
+				} finally {
+					refreshing.set(false);
+				}
+			}
+		};
+		try {
+			provider.getInjector().getExecutor().execute(task);
+		} catch (RejectedExecutionException e) {
+			refreshing.set(false);
+			refreshFailures.increment();
+		}
+	}
+
+	/**
+	 * Cached instance and the time it was created.
+	 */
+	private final class Entry {
+
+		/** The instance if it is strongly referenced. */
+		private final Object value;
+
+		/** Reference to the instance or null if it is strongly referenced. */
+		private final Reference<Object> ref;
+
+		private final long created = System.nanoTime();
+
+		Entry(Object value) {
+			if (value == null || reference == CacheReference.STRONG) {
+				this.value = value;
+				this.ref = null;
+			} else {
+				this.value = null;
+				this.ref = (reference == CacheReference.SOFT ?
+						new SoftReference<Object>(value) : new WeakReference<Object>(value));
+			}
+		}
+
+		/**
+		 * Returns the instance or {@link ProviderCache#CLEARED} if it was garbage collected.
+		 */
+		Object value() {
+			if (ref == null) {
+				return value;
+			}
+			final Object referent = ref.get();
+			return (referent == null ? CLEARED : referent);
+		}
+
+		boolean isExpired() {
+			return ttl > 0 && System.nanoTime() - created >= ttl;
+		}
+	}
+}
@@ -21,6 +21,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
 /**
  * Matcher class that finds, depending on search criteria, and returns all matching Providers 
@@ -29,12 +32,15 @@ import java.util.List;
 @SuppressWarnings("rawtypes")
 class ProviderFinder {
 
+	/** Name patterns are only cached up to this many, in case names are built at runtime. */
+	private static final int MAX_PATTERNS = 1024;
+
+	/** Compiled name patterns by their regular expression. */
+	private static final ConcurrentMap<String, Pattern> PATTERNS = new ConcurrentHashMap<String, Pattern>();
+
 	/** Collection to search in. */
 	private Collection<Provider> providers;
 	
-	/** ReturnType search criteria. */
-	private Type returnType;
-	
 	/** Provider's name search criteria.  */
 	private String name;
 	
@@ -51,18 +57,8 @@ class ProviderFinder {
 	}
 
 	/**
-	 * Sets return type search criteria.
-	 * 
-	 * @param returnType the provider's return type
-	 * @return this instance of {@link ProviderFinder}
-	 */
-	ProviderFinder byReturnType(Type returnType) {
-		this.returnType = Primitives.convertToObject(returnType);
-		return this;
-	}
-
-	/**
-	 * Sets name search criteria. Name is matched using {@link String#matches(String)}.
+	 * Sets name search criteria. Name is matched like {@link String#matches(String)}, see
+	 * {@link #nameMatches(String, String)}.
 	 * 
 	 * @param name the provider's name
 	 * @return this instance of {@link ProviderFinder}
@@ -100,9 +96,55 @@ class ProviderFinder {
 	
 	private boolean matches(Provider p) {
 		boolean match = true;
-		match = (match && returnType != null ? p.getType().equals(returnType) : match);
-		match = (match && name != null ? p.getName().matches(name) : match);
+		match = (match && name != null ? nameMatches(p.getName(), name) : match);
 		match = (match && arguments != null ? Arrays.equals(p.getDependencies(), arguments) : match);
 		return match;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns true if the provider name matches the name qualifier like
+	 * {@link String#matches(String)}. Qualifiers without regular expression metacharacters
+	 * are compared using {@link String#equals(Object)}, others are compiled once.
+	 * 
+	 * @param providerName the provider's name
+	 * @param name the name qualifier
+	 * @return true if the name matches
+	 */
+	static boolean nameMatches(String providerName, String name) {
+		if (isLiteral(name)) {
+			return name.equals(providerName);
+		}
+		return pattern(name).matcher(providerName).matches();
+	}
+
+	/**
+	 * Returns true if the name qualifier contains no regular expression metacharacters,
+	 * so it only matches itself.
+	 * 
+	 * @param name the name qualifier
+	 * @return true if the name is a literal
+	 */
+	static boolean isLiteral(String name) {
+		for (int i = 0; i < name.length(); i++) {
+			switch (name.charAt(i)) {
+			case '\\': case '^': case '$': case '.': case '|': case '?': case '*':
+			case '+': case '(': case ')': case '[': case ']': case '{': case '}':
+				return false;
+			default:
+				break;
+			}
+		}
+		return true;
+	}
+
+	private static Pattern pattern(String regex) {
+		Pattern pattern = PATTERNS.get(regex);
+		if (pattern == null) {
+			pattern = Pattern.compile(regex);
+			if (PATTERNS.size() < MAX_PATTERNS) {
+				PATTERNS.putIfAbsent(regex, pattern);
+			}
+		}
+		return pattern;
+	}
+}
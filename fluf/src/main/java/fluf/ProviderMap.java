@@ -0,0 +1,118 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unmodifiable map of instances keyed by the names of the providers creating them. The map
+ * is built from providers once, values are only created when they are read, so looking up
+ * one instance by name is a single hash lookup. Providers that are not cached create a
+ * new instance every time their value is read.
+ */
+@SuppressWarnings("rawtypes")
+final class ProviderMap extends AbstractMap<String, Object> {
+
+	/** Bindings version of the injector the map was built from. */
+	final int version;
+
+	/** Providers by name. */
+	private final Map<String, Provider> providers;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param version bindings version of the injector the providers were found in
+	 * @param providers providers by name, see {@link #byName(Collection)}
+	 */
+	ProviderMap(int version, Map<String, Provider> providers) {
+		this.version = version;
+		this.providers = providers;
+	}
+
+	/**
+	 * Returns the given providers by their names, in the given order. Of providers with equal
+	 * names, the last one is kept, so an extending injector's providers shadow the parent's.
+	 * 
+	 * @param providers the providers
+	 * @return map of providers by name
+	 */
+	static Map<String, Provider> byName(Collection<Provider> providers) {
+		final Map<String, Provider> byName = new LinkedHashMap<String, Provider>((int) (providers.size() / 0.75f) + 1);
+		for (Provider provider : providers) {
+			byName.put(provider.getName(), provider);
+		}
+		return byName;
+	}
+
+	@Override
+	public Object get(Object name) {
+		final Provider provider = providers.get(name);
+		return (provider == null ? null : provider.get());
+	}
+
+	@Override
+	public boolean containsKey(Object name) {
+		return providers.containsKey(name);
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(providers.keySet());
+	}
+
+	@Override
+	public int size() {
+		return providers.size();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return new AbstractSet<Map.Entry<String, Object>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				final Iterator<Map.Entry<String, Provider>> it = providers.entrySet().iterator();
+				return new Iterator<Map.Entry<String, Object>>() {
+
+					@Override
+					public boolean hasNext() {
+						return it.hasNext();
+					}
+
+					@Override
+					public Map.Entry<String, Object> next() {
+						final Map.Entry<String, Provider> next = it.next();
+						return new AbstractMap.SimpleImmutableEntry<String, Object>(next.getKey(), next.getValue().get());
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return providers.size();
+			}
+		};
+	}
+}
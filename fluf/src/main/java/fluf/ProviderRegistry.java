@@ -0,0 +1,258 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable snapshot of an {@link Injector}'s providers. Besides keeping providers in the order
+ * they were bound, providers are indexed by their canonical binding type so that
+ * a lookup only has to look at the providers of the requested type.
+ * <p>
+ * Adding providers creates a new snapshot, so readers can use a snapshot without any locking
+ * while bindings are being added concurrently. All providers of a module are added to one
+ * new snapshot, so binding a module copies the index only once. Every type's providers are also
+ * indexed by name, so a literal name qualifier is looked up without scanning. The providers
+ * matching a regular expression qualifier are found once per snapshot and remembered.
+ * A frozen registry rejects new providers.
+ */
+@SuppressWarnings("rawtypes")
+final class ProviderRegistry {
+
+	/** Registry without any providers. */
+	static final ProviderRegistry EMPTY = new ProviderRegistry(0, new Provider[0], new HashMap<Type, Bucket>(), -1);
+
+	/** Version of the bindings, incremented by every added provider. */
+	private final int version;
+
+	/** All providers in binding order. */
+	private final Provider[] providers;
+
+	/** Providers grouped by their canonical binding type, see {@link Key}, never modified after construction. */
+	private final Map<Type, Bucket> providersByType;
+
+	/** Bindings version of the whole injector hierarchy if this registry is frozen, -1 otherwise. */
+	private final int frozenVersion;
+
+	/** Providers matching regular expression keys looked up in this snapshot. */
+	private final ConcurrentMap<Key<?>, List<Provider>> named = new ConcurrentHashMap<Key<?>, List<Provider>>();
+
+	/** Maps returned by {@link Injector#getMap(Key)} while this snapshot was current. */
+	private final ConcurrentMap<Key<?>, ProviderMap> maps = new ConcurrentHashMap<Key<?>, ProviderMap>();
+
+	private ProviderRegistry(int version, Provider[] providers, Map<Type, Bucket> providersByType, int frozenVersion) {
+		this.version = version;
+		this.providers = providers;
+		this.providersByType = providersByType;
+		this.frozenVersion = frozenVersion;
+	}
+
+	/**
+	 * Returns a new registry containing this registry's providers and the given ones.
+	 * The version is incremented once for every added provider.
+	 *
+	 * @param added the providers to add, in binding order
+	 * @return the new registry or this registry if there are no providers to add
+	 * @throws RuntimeException if this registry is frozen or an equal provider is already registered
+	 */
+	ProviderRegistry with(List<Provider> added) {
+		if (added.isEmpty()) {
+			return this;
+		}
+		if (isFrozen()) {
+			throw new RuntimeException(String.format("Cannot add provider %s, the injector is frozen", added.get(0)));
+		}
+		// only the buckets of the added providers' types are copied
+		final Map<Type, List<Provider>> grown = new HashMap<Type, List<Provider>>();
+		for (Provider provider : added) {
+			final Type type = provider.getKey().getType();
+			List<Provider> bucket = grown.get(type);
+			if (bucket == null) {
+				final Bucket existing = providersByType.get(type);
+				bucket = (existing == null ? new ArrayList<Provider>(1) : new ArrayList<Provider>(existing.all));
+				grown.put(type, bucket);
+			}
+			for (Provider other : bucket) {
+				if (other.equals(provider)) {
+					throw new RuntimeException(
+							String.format("Multiple provider methods with matching signatures:\n%s\n%s", provider, other));
+				}
+			}
+			bucket.add(provider);
+		}
+		final Map<Type, Bucket> byType = new HashMap<Type, Bucket>(
+				(int) ((providersByType.size() + grown.size()) / 0.75f) + 1);
+		byType.putAll(providersByType);
+		for (Map.Entry<Type, List<Provider>> entry : grown.entrySet()) {
+			byType.put(entry.getKey(), new Bucket(entry.getValue()));
+		}
+		final Provider[] all = Arrays.copyOf(providers, providers.length + added.size());
+		for (int i = 0; i < added.size(); i++) {
+			all[providers.length + i] = added.get(i);
+		}
+		return new ProviderRegistry(version + added.size(), all, byType, -1);
+	}
+
+	/**
+	 * Returns a frozen copy of this registry. The type index is copied into a map sized for
+	 * its final number of types.
+	 * 
+	 * @param hierarchyVersion bindings version of the whole injector hierarchy, which can no longer change
+	 * @return the frozen registry
+	 */
+	ProviderRegistry freeze(int hierarchyVersion) {
+		final Map<Type, Bucket> byType = new HashMap<Type, Bucket>(
+				(int) (providersByType.size() / 0.75f) + 1);
+		byType.putAll(providersByType);
+		return new ProviderRegistry(version, providers, byType, hierarchyVersion);
+	}
+
+	/**
+	 * Returns true if this registry no longer accepts providers.
+	 * 
+	 * @return true if frozen
+	 */
+	boolean isFrozen() {
+		return frozenVersion >= 0;
+	}
+
+	/**
+	 * Returns the bindings version of the whole injector hierarchy this registry was frozen with.
+	 * 
+	 * @return the frozen version or -1 if this registry is not frozen
+	 */
+	int getFrozenVersion() {
+		return frozenVersion;
+	}
+
+	/**
+	 * Returns the version of this registry. The version changes every time a provider
+	 * is added, so anything linked against the registry's providers can tell if it is stale.
+	 *
+	 * @return the version
+	 */
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns all registered providers in binding order.
+	 *
+	 * @return unmodifiable list of providers
+	 */
+	List<Provider> getProviders() {
+		return Collections.unmodifiableList(Arrays.asList(providers));
+	}
+
+	/**
+	 * Returns providers whose canonical type is the given key's type and whose name matches
+	 * the key's name like {@link String#matches(String)}. Literal names are looked up in the
+	 * bucket's name index, only regular expressions are matched against every provider
+	 * of the type.
+	 *
+	 * @param key the binding key
+	 * @return unmodifiable list of providers in binding order, can be empty
+	 */
+	List<Provider> getProviders(Key<?> key) {
+		final Bucket bucket = providersByType.get(key.getType());
+		if (bucket == null) {
+			return Collections.emptyList();
+		}
+		final String name = key.getName();
+		if (name == null) {
+			return bucket.all;
+		}
+		if (!key.isPattern()) {
+			final List<Provider> named = bucket.byName.get(name);
+			return (named == null ? Collections.<Provider>emptyList() : named);
+		}
+		List<Provider> matching = this.named.get(key);
+		if (matching == null) {
+			matching = Collections.unmodifiableList(new ArrayList<Provider>(
+					new ProviderFinder(bucket.all).byName(name).find()));
+			this.named.putIfAbsent(key, matching);
+		}
+		return matching;
+	}
+
+	/**
+	 * Returns the provider map last built for the given key while this snapshot was current.
+	 * Maps are kept by the snapshot, so they are dropped when bindings are added.
+	 * 
+	 * @param key the key
+	 * @return the map or null if there is none, may be stale if a parent injector changed
+	 */
+	ProviderMap getMap(Key<?> key) {
+		return maps.get(key);
+	}
+
+	/**
+	 * Remembers a provider map built for the given key unless another thread replaced the
+	 * stale map meanwhile.
+	 * 
+	 * @param key the key
+	 * @param stale the map returned by {@link #getMap(Key)}, null if there was none
+	 * @param built the new map
+	 * @return the new map
+	 */
+	ProviderMap putMap(Key<?> key, ProviderMap stale, ProviderMap built) {
+		if (stale == null) {
+			maps.putIfAbsent(key, built);
+		} else {
+			maps.replace(key, stale, built);
+		}
+		return built;
+	}
+
+	/**
+	 * Providers of one type in binding order, indexed by name. Buckets of types that
+	 * no provider was added to are shared by consecutive snapshots.
+	 */
+	private static final class Bucket {
+
+		/** Unmodifiable list of the type's providers. */
+		final List<Provider> all;
+
+		/** Unmodifiable lists of the type's providers by their name. */
+		final Map<String, List<Provider>> byName;
+
+		Bucket(List<Provider> providers) {
+			this.all = Collections.unmodifiableList(Arrays.asList(providers.toArray(new Provider[providers.size()])));
+			final Map<String, List<Provider>> names = new HashMap<String, List<Provider>>();
+			for (Provider provider : providers) {
+				List<Provider> named = names.get(provider.getName());
+				if (named == null) {
+					named = new ArrayList<Provider>(1);
+					names.put(provider.getName(), named);
+				}
+				named.add(provider);
+			}
+			for (Map.Entry<String, List<Provider>> entry : names.entrySet()) {
+				entry.setValue(Collections.unmodifiableList(entry.getValue()));
+			}
+			this.byName = names;
+		}
+	}
+}
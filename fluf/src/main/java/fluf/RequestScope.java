@@ -0,0 +1,87 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * {@link ContextScope} that is explicitly entered and exited by the thread handling a request.
+ * 
+ * <pre>
+ *   ScopeContext previous = RequestScope.enter();
+ *   try {
+ *     handler.handle(request);
+ *   } finally {
+ *     RequestScope.exit(previous);
+ *   }</pre>
+ * 
+ * Requests may be nested, exiting the inner request restores the outer one. A request's
+ * {@link ScopeContext} can be passed to other threads working on the same request and
+ * entered there using {@link #enter(ScopeContext)}.
+ */
+public class RequestScope extends ContextScope {
+
+	/** Context of the request handled by the current thread. */
+	private static final ThreadLocal<ScopeContext> CURRENT = new ThreadLocal<ScopeContext>();
+
+	/**
+	 * Enters a new request context on the current thread.
+	 * 
+	 * @return the previously entered context to pass to {@link #exit(ScopeContext)}, null if none
+	 */
+	public static ScopeContext enter() {
+		return enter(new ScopeContext());
+	}
+
+	/**
+	 * Enters an existing request context on the current thread.
+	 * 
+	 * @param context the context
+	 * @return the previously entered context to pass to {@link #exit(ScopeContext)}, null if none
+	 */
+	public static ScopeContext enter(ScopeContext context) {
+		Provider.checkNotNull(context, "scope context");
+		final ScopeContext previous = CURRENT.get();
+		CURRENT.set(context);
+		return previous;
+	}
+
+	/**
+	 * Exits the request context of the current thread and restores the previous one.
+	 * 
+	 * @param previous the context returned by the matching {@code enter}, null if none
+	 */
+	public static void exit(ScopeContext previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Returns the request context of the current thread, e.g. to enter it on another thread.
+	 * 
+	 * @return the context or null if no request is active
+	 */
+	public static ScopeContext current() {
+		return CURRENT.get();
+	}
+
+	@Override
+	protected ScopeContext currentContext() {
+		return CURRENT.get();
+	}
+}
@@ -0,0 +1,121 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * {@link Scope} sharing one instance within a single resolution, i.e. a top-level
+ * {@link Injector#get(Class)}, {@link Provider#get()} or proxy factory call including all
+ * dependencies it creates. A dependency needed by several instances of the same object graph
+ * is created once for the graph, and the next resolution creates a new one:
+ * 
+ * <pre>
+ *   <b>@Bind(scope = ResolutionScope.class)</b>
+ *   Integer wheelSize() {
+ *     ...
+ *   }
+ *   
+ *   <b>@Bind</b>
+ *   Bike bike(Wheel frontWheel, Wheel backWheel) { // both wheels get the same size
+ *     ...
+ *   }</pre>
+ * 
+ * A resolution is bound to the thread running it, so dependencies created on other threads,
+ * e.g. by {@link Injector#getAsync(Class)}, and {@link Lazy} or streamed instances created
+ * after the resolution has finished get instances of their own resolution.
+ */
+public class ResolutionScope extends Scope {
+
+	/** Resolution of the current thread. */
+	private static final ThreadLocal<Resolution> CURRENT = new ThreadLocal<Resolution>() {
+		@Override
+		protected Resolution initialValue() {
+			return new Resolution();
+		}
+	};
+
+	/** Set once the scope is used, until then resolutions are not tracked at all. */
+	private static volatile boolean used;
+
+	/**
+	 * Constructor, called once when the first provider using this scope is bound.
+	 */
+	public ResolutionScope() {
+		used = true;
+	}
+
+	@Override
+	protected <T> T get(Provider<T> provider) {
+		final Resolution resolution = (used ? CURRENT.get() : null);
+		if (resolution == null || resolution.depth == 0) {
+			// not called while creating an instance, so this is a resolution of its own
+			return create(provider);
+		}
+		return resolution.get(provider);
+	}
+
+	/**
+	 * Enters a resolution on the current thread, or the one already running on it.
+	 * 
+	 * @return the resolution to {@link Resolution#exit() exit} once the instance is created,
+	 * null if the scope is not used
+	 */
+	static Resolution enter() {
+		if (!used) {
+			return null;
+		}
+		final Resolution resolution = CURRENT.get();
+		resolution.depth++;
+		return resolution;
+	}
+
+	/**
+	 * Instances of a thread's current resolution. The same object is reused by all
+	 * resolutions of the thread.
+	 */
+	static final class Resolution {
+
+		/** Number of instances being created, 0 if there is no resolution running. */
+		private int depth;
+
+		/** Instances by their provider, created by the first scoped provider. */
+		private Map<Provider<?>, Object> instances;
+
+		<T> T get(Provider<T> provider) {
+			if (instances == null) {
+				instances = new IdentityHashMap<Provider<?>, Object>();
+			}
+			Object value = instances.get(provider);
+			if (value == null) {
+				value = mask(create(provider));
+				instances.put(provider, value);
+			}
+			return unmask(value);
+		}
+
+		/**
+		 * Exits this resolution, dropping its instances if it was entered first.
+		 */
+		void exit() {
+			if (--depth == 0) {
+				instances = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Scope of a {@link Provider}'s instances, set using the {@link Bind#scope()} attribute.
+ * A scope decides if a {@link Provider#get()} call returns an existing instance or
+ * creates a new one using {@link #create(Provider)}. There is a single instance of every
+ * scope class, created using its no-argument constructor.
+ * <p>
+ * {@link Scope} itself is used as the default {@link Bind#scope()} value meaning
+ * the provider is not scoped.
+ * 
+ * @see ThreadScope
+ * @see RequestScope
+ * @see ResolutionScope
+ * @see ContextScope
+ */
+public abstract class Scope {
+
+	/** Scope instances by their class. */
+	private static final ClassValue<Scope> SCOPES = new ClassValue<Scope>() {
+		@Override
+		protected Scope computeValue(Class<?> type) {
+			try {
+				final Constructor<?> constructor = type.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				return (Scope) constructor.newInstance();
+			} catch (Exception e) {
+				throw new RuntimeException(String.format("Cannot create scope %s", type.getName()), e);
+			}
+		}
+	};
+
+	/** Placeholder stored for null instances by scopes that cannot store nulls. */
+	static final Object NULL = new Object();
+
+	/**
+	 * Returns the instance of the given provider in this scope.
+	 * 
+	 * @param provider the scoped provider
+	 * @param <T> provider type
+	 * @return an instance of type {@code T}
+	 */
+	protected abstract <T> T get(Provider<T> provider);
+
+	/**
+	 * Creates a new instance using the given provider, ignoring its scope.
+	 * 
+	 * @param provider the provider
+	 * @param <T> provider type
+	 * @return new instance of type {@code T}
+	 */
+	protected static <T> T create(Provider<T> provider) {
+		return provider.create();
+	}
+
+	/**
+	 * Returns the instance of a scope class.
+	 * 
+	 * @param type the scope class
+	 * @return the scope instance or null if the type is {@link Scope} itself
+	 */
+	static Scope forClass(Class<? extends Scope> type) {
+		return (type == Scope.class ? null : SCOPES.get(type));
+	}
+
+	/**
+	 * Returns the given value or {@link #NULL} if it is null.
+	 */
+	static Object mask(Object value) {
+		return (value == null ? NULL : value);
+	}
+
+	/**
+	 * Returns the given value or null if it is {@link #NULL}.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T unmask(Object value) {
+		return (value == NULL ? null : (T) value);
+	}
+}
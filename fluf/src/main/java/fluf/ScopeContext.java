@@ -0,0 +1,59 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the instances of a {@link ContextScope}, e.g. the instances of a single request.
+ * A context can be used by multiple threads. Existing instances are looked up without
+ * locking, only creating an instance locks the context.
+ */
+public final class ScopeContext {
+
+	/** Instances by their provider. */
+	private final ConcurrentMap<Provider<?>, Object> instances = new ConcurrentHashMap<Provider<?>, Object>();
+
+	/** Lock held while an instance is being created, doesn't pin virtual threads like a monitor would. */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Returns the instance of the given provider in this context, creating it if needed.
+	 * 
+	 * @param provider the provider
+	 * @param <T> provider type
+	 * @return an instance of type {@code T}
+	 */
+	<T> T get(Provider<T> provider) {
+		Object value = instances.get(provider);
+		if (value == null) {
+			lock.lock();
+			try {
+				value = instances.get(provider);
+				if (value == null) {
+					value = Scope.mask(Scope.create(provider));
+					instances.put(provider, value);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		return Scope.unmask(value);
+	}
+}
@@ -0,0 +1,231 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Initializes cached providers ahead of their first use. The dependency graph of the cached
+ * providers is built from their {@link DependencyPlan}s, following dependencies of non-cached
+ * providers too, and every provider is initialized on an {@link Executor} as soon as all cached
+ * providers it depends on are initialized. Independent providers are thus initialized in parallel.
+ * <p>
+ * Injected {@link Provider}s are not followed, they are only called when the dependent
+ * provider decides to.
+ */
+@SuppressWarnings("rawtypes")
+class SingletonInitializer {
+
+	/** Executor the providers are initialized on. */
+	private final Executor executor;
+
+	/** Graph nodes of the cached providers that are not initialized yet. */
+	private final Map<Provider, Node> nodes = new LinkedHashMap<Provider, Node>();
+
+	/** Nodes of the cached providers every visited non-cached provider depends on. */
+	private final Map<Provider, Set<Node>> reached = new HashMap<Provider, Set<Node>>();
+
+	/** Initialization time in nanoseconds of every initialized provider, in completion order. */
+	private final Map<Provider<?>, Long> times = Collections.synchronizedMap(new LinkedHashMap<Provider<?>, Long>());
+
+	/** Errors thrown by the providers. */
+	private final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+
+	/** Counts down for every node that completed or was skipped. */
+	private CountDownLatch pending;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param executor executor to initialize the providers on
+	 */
+	SingletonInitializer(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Initializes the given cached providers and all cached providers they depend on.
+	 * Blocks until all of them are initialized.
+	 * 
+	 * @param providers providers to initialize, non-cached providers are ignored
+	 * @return initialization time in nanoseconds of every initialized provider
+	 * @throws RuntimeException if the dependencies contain a cycle or a provider failed
+	 */
+	Map<Provider<?>, Long> initialize(Collection<Provider> providers) {
+		for (Provider provider : providers) {
+			if (provider.isCached() && !provider.isInitialized()) {
+				node(provider, new ArrayList<Provider>());
+			}
+		}
+		this.pending = new CountDownLatch(nodes.size());
+		for (Node node : nodes.values()) {
+			if (node.remaining.get() == 0) {
+				submit(node);
+			}
+		}
+		try {
+			pending.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while initializing singletons", e);
+		}
+		if (!errors.isEmpty()) {
+			final RuntimeException error = new RuntimeException(
+					String.format("%d of %d singletons failed to initialize", errors.size(), nodes.size()), errors.get(0));
+			for (int i = 1; i < errors.size(); i++) {
+				error.addSuppressed(errors.get(i));
+			}
+			throw error;
+		}
+		return Collections.unmodifiableMap(times);
+	}
+
+	private Node node(Provider provider, List<Provider> path) {
+		Node node = nodes.get(provider);
+		if (node != null) {
+			return node;
+		}
+		checkCycle(provider, path);
+		path.add(provider);
+		final Set<Node> dependencies = new LinkedHashSet<Node>();
+		collectDependencies(provider, dependencies, path);
+		path.remove(path.size() - 1);
+		node = new Node(provider, dependencies.size());
+		for (Node dependency : dependencies) {
+			dependency.dependents.add(node);
+		}
+		nodes.put(provider, node);
+		return node;
+	}
+
+	/**
+	 * Collects the nodes of cached providers the given provider depends on,
+	 * directly or through non-cached providers.
+	 */
+	private void collectDependencies(Provider provider, Set<Node> dependencies, List<Provider> path) {
+		for (Provider dependency : provider.getDependencyPlan().getProviders()) {
+			if (dependency.isCached()) {
+				if (!dependency.isInitialized()) {
+					dependencies.add(node(dependency, path));
+				}
+			} else {
+				dependencies.addAll(reached(dependency, path));
+			}
+		}
+	}
+
+	/**
+	 * Returns the nodes of cached providers the given non-cached provider depends on,
+	 * collecting them on the first visit only.
+	 */
+	private Set<Node> reached(Provider provider, List<Provider> path) {
+		Set<Node> found = reached.get(provider);
+		if (found == null) {
+			checkCycle(provider, path);
+			path.add(provider);
+			found = new LinkedHashSet<Node>();
+			collectDependencies(provider, found, path);
+			path.remove(path.size() - 1);
+			reached.put(provider, found);
+		}
+		return found;
+	}
+
+	/**
+	 * Runs the node on the executor. Nodes that failed already and nodes the executor rejects
+	 * run on the current thread, which skips their provider but still releases their dependents.
+	 */
+	private void submit(Node node) {
+		if (!node.failed) {
+			try {
+				executor.execute(node);
+				return;
+			} catch (RuntimeException e) {
+				node.failed = true;
+				errors.add(e);
+			}
+		}
+		node.run();
+	}
+
+	private void checkCycle(Provider provider, List<Provider> path) {
+		final int start = path.indexOf(provider);
+		if (start >= 0) {
+			final StringBuilder cycle = new StringBuilder();
+			for (Provider p : path.subList(start, path.size())) {
+				cycle.append(p).append("\n -> ");
+			}
+			throw new RuntimeException(String.format("Dependency cycle:\n%s%s", cycle, provider));
+		}
+	}
+
+	/**
+	 * Cached provider waiting for the cached providers it depends on.
+	 */
+	private final class Node implements Runnable {
+
+		final Provider provider;
+
+		/** Number of dependencies that are not initialized yet. */
+		final AtomicInteger remaining;
+
+		/** Nodes depending on this node. */
+		final List<Node> dependents = new ArrayList<Node>();
+
+		/** Set if this node or any of its dependencies failed to initialize. */
+		volatile boolean failed;
+
+		Node(Provider provider, int dependencies) {
+			this.provider = provider;
+			this.remaining = new AtomicInteger(dependencies);
+		}
+
+		@Override
+		public void run() {
+			if (!failed) {
+				try {
+					final long start = System.nanoTime();
+					provider.get();
+					times.put(provider, System.nanoTime() - start);
+				} catch (Throwable e) {
+					failed = true;
+					errors.add(e);
+				}
+			}
+			for (Node dependent : dependents) {
+				if (failed) {
+					dependent.failed = true;
+				}
+				if (dependent.remaining.decrementAndGet() == 0) {
+					submit(dependent);
+				}
+			}
+			pending.countDown();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * {@link Scope} holding one instance per thread. Instances are kept by their provider, so they
+ * are dropped together with the provider's {@link Injector}, or earlier by calling
+ * {@link #remove(Provider)} on the thread that got them. Prefer a {@link ContextScope} for short
+ * lived threads like virtual threads.
+ */
+public class ThreadScope extends Scope {
+
+	/**
+	 * Removes the current thread's instance of a thread scoped provider. The next request on
+	 * this thread creates a new instance.
+	 * 
+	 * @param provider the provider
+	 */
+	public static void remove(Provider<?> provider) {
+		Provider.checkNotNull(provider, "provider");
+		final ThreadLocal<Object> instances = provider.getThreadInstances();
+		if (instances != null) {
+			instances.remove();
+		}
+	}
+
+	@Override
+	protected <T> T get(Provider<T> provider) {
+		final ThreadLocal<Object> instances = provider.getThreadInstances();
+		Object value = instances.get();
+		if (value == null) {
+			value = mask(create(provider));
+			instances.set(value);
+		}
+		return unmask(value);
+	}
+}
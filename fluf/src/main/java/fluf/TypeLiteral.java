@@ -36,6 +36,14 @@ import java.lang.reflect.TypeVariable;
  */
 @SuppressWarnings("unchecked")
 public abstract class TypeLiteral<T> {
+
+	/** Canonical type represented by every {@link TypeLiteral} subclass. */
+	private static final ClassValue<Type> TYPES = new ClassValue<Type>() {
+		@Override
+		protected Type computeValue(Class<?> literalClass) {
+			return Types.canonicalize(typeArgument(literalClass));
+		}
+	};
 	
 	/** Type this instance represents. */
 	private Type type;
@@ -50,20 +58,11 @@ public abstract class TypeLiteral<T> {
 	 * <p>
 	 * Clients create an empty anonymous subclass. Doing so embeds the type
 	 * parameter in the anonymous class's type hierarchy so we can reconstitute
-	 * it at runtime despite erasure.
+	 * it at runtime despite erasure. The type is read once per subclass, so a literal
+	 * created repeatedly at the same place only costs the allocation.
 	 */
 	public TypeLiteral() {
-		ParameterizedType genClass = (ParameterizedType) getClass().getGenericSuperclass();
-		Type[] types = genClass.getActualTypeArguments();
-		if (types == null || types.length == 0) {
-			throw new RuntimeException("TypeLiteral<T> must have a specfied type <T>");
-		}
-		this.type = types[0];
-		if (this.type instanceof GenericArrayType)
-			throw new RuntimeException("TypeLiteral does not support GenericArrayTypes, use Injector.get(ComponentType[].class)");
-		if (this.type instanceof TypeVariable)
-			throw new RuntimeException("TypeLiteral does not support TypeVariables");
-		
+		this.type = TYPES.get(getClass());
 		if (type instanceof Class) {
 			this.rawType = (Class<T>) this.type;
 		} else if (type instanceof ParameterizedType) {
@@ -73,6 +72,20 @@ public abstract class TypeLiteral<T> {
 		}
 	}
 
+	private static Type typeArgument(Class<?> literalClass) {
+		ParameterizedType genClass = (ParameterizedType) literalClass.getGenericSuperclass();
+		Type[] types = genClass.getActualTypeArguments();
+		if (types == null || types.length == 0) {
+			throw new RuntimeException("TypeLiteral<T> must have a specfied type <T>");
+		}
+		Type type = types[0];
+		if (type instanceof GenericArrayType)
+			throw new RuntimeException("TypeLiteral does not support GenericArrayTypes, use Injector.get(ComponentType[].class)");
+		if (type instanceof TypeVariable)
+			throw new RuntimeException("TypeLiteral does not support TypeVariables");
+		return type;
+	}
+
 	/**
 	 * Returns type this {@link TypeLiteral<T>} represents.
 	 * 
@@ -0,0 +1,304 @@
+package fluf;
+
+/**
+ * Copyright 2017 Simonas Galinis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Factory of generic {@link Type} instances. Created types are equal to, and have
+ * the same hash codes as, the types returned by the JDK's reflection API, so they can
+ * be used interchangeably as binding types.
+ * <p>
+ * Mostly used by code generated at compile time, which has no {@link java.lang.reflect.Method}
+ * to read generic types from.
+ */
+public final class Types {
+
+	/**
+	 * Canonical parameterized types by their raw type and canonical wildcard types under
+	 * {@code WildcardType.class}. Canonical types are only weakly referenced, so they are dropped
+	 * once no {@link Key} uses them and don't keep their classes' class loaders alive.
+	 */
+	private static final ClassValue<Interned> CANONICAL = new ClassValue<Interned>() {
+		@Override
+		protected Interned computeValue(Class<?> type) {
+			return new Interned();
+		}
+	};
+
+	private Types() {
+	}
+
+	/**
+	 * Returns a parameterized type, like {@code List<String>}.
+	 * 
+	 * @param rawType the raw type, {@code List.class}
+	 * @param typeArguments the type arguments, {@code String.class}
+	 * @return the parameterized type
+	 */
+	public static ParameterizedType parameterized(Class<?> rawType, Type...typeArguments) {
+		Provider.checkNotNull(rawType, "raw type");
+		Provider.checkNotNull(typeArguments, "type argument array");
+		if (rawType.getTypeParameters().length != typeArguments.length) {
+			throw new IllegalArgumentException(String.format("%s expects %d type arguments but got %d",
+					rawType, rawType.getTypeParameters().length, typeArguments.length));
+		}
+		return new ParameterizedTypeImpl(rawType, typeArguments.clone());
+	}
+
+	/**
+	 * Returns a wildcard type with given bounds, like {@code ? extends Number}.
+	 * 
+	 * @param upperBounds upper bounds, {@code Object.class} if the wildcard is unbounded
+	 * @param lowerBounds lower bounds, empty unless the wildcard is {@code ? super T}
+	 * @return the wildcard type
+	 */
+	public static WildcardType wildcard(Type[] upperBounds, Type[] lowerBounds) {
+		Provider.checkNotNull(upperBounds, "upper bounds");
+		Provider.checkNotNull(lowerBounds, "lower bounds");
+		return new WildcardTypeImpl(upperBounds.clone(), lowerBounds.clone());
+	}
+
+	/**
+	 * Returns the canonical instance of a type. Primitive types are boxed, equal parameterized
+	 * and wildcard types from any source share one canonical instance, so canonical types can
+	 * be compared by reference. Canonical generic types cache their hash codes.
+	 * Generic array types and type variables are returned as they are.
+	 * 
+	 * @param type the type
+	 * @return the canonical type
+	 */
+	static Type canonicalize(Type type) {
+		if (type instanceof Class) {
+			return Primitives.convertToObject(type);
+		}
+		if (!(type instanceof ParameterizedType || type instanceof WildcardType)) {
+			return type;
+		}
+		final Interned interned = CANONICAL.get(type instanceof ParameterizedType ?
+				(Class<?>) ((ParameterizedType) type).getRawType() : WildcardType.class);
+		final Type canonical = interned.get(type);
+		if (canonical != null) {
+			return canonical;
+		}
+		return interned.putIfAbsent(type instanceof ParameterizedType ?
+				canonicalCopy((ParameterizedType) type) : canonicalCopy((WildcardType) type));
+	}
+
+	private static Type canonicalCopy(ParameterizedType type) {
+		final Type owner = type.getOwnerType();
+		return new ParameterizedTypeImpl((Class<?>) type.getRawType(),
+				(owner == null ? null : canonicalize(owner)), canonicalize(type.getActualTypeArguments()));
+	}
+
+	private static Type canonicalCopy(WildcardType type) {
+		return new WildcardTypeImpl(canonicalize(type.getUpperBounds()), canonicalize(type.getLowerBounds()));
+	}
+
+	private static Type[] canonicalize(Type[] types) {
+		final Type[] canonical = new Type[types.length];
+		for (int i = 0; i < types.length; i++) {
+			canonical[i] = canonicalize(types[i]);
+		}
+		return canonical;
+	}
+
+	/**
+	 * Weakly referenced canonical types of a single raw type.
+	 */
+	private static final class Interned {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final Map<Type, WeakReference<Type>> types = new WeakHashMap<Type, WeakReference<Type>>();
+
+		/**
+		 * Returns the canonical instance equal to the given type.
+		 * 
+		 * @param type the type
+		 * @return the canonical type or null if there is none
+		 */
+		Type get(Type type) {
+			lock.lock();
+			try {
+				final WeakReference<Type> canonical = types.get(type);
+				return (canonical == null ? null : canonical.get());
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Makes the given type canonical unless an equal canonical type exists.
+		 * 
+		 * @param created the new canonical type
+		 * @return the canonical type
+		 */
+		Type putIfAbsent(Type created) {
+			lock.lock();
+			try {
+				final WeakReference<Type> existing = types.get(created);
+				final Type canonical = (existing == null ? null : existing.get());
+				if (canonical != null) {
+					return canonical;
+				}
+				types.put(created, new WeakReference<Type>(created));
+				return created;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * {@link ParameterizedType} implementation matching the JDK's equality contract.
+	 */
+	private static final class ParameterizedTypeImpl implements ParameterizedType {
+
+		private final Class<?> rawType;
+
+		private final Type ownerType;
+
+		private final Type[] typeArguments;
+
+		private final int hash;
+
+		ParameterizedTypeImpl(Class<?> rawType, Type[] typeArguments) {
+			this(rawType, rawType.getDeclaringClass(), typeArguments);
+		}
+
+		ParameterizedTypeImpl(Class<?> rawType, Type ownerType, Type[] typeArguments) {
+			this.rawType = rawType;
+			this.ownerType = ownerType;
+			this.typeArguments = typeArguments;
+			this.hash = Arrays.hashCode(typeArguments)
+					^ (ownerType == null ? 0 : ownerType.hashCode())
+					^ rawType.hashCode();
+		}
+
+		@Override
+		public Type[] getActualTypeArguments() {
+			return typeArguments.clone();
+		}
+
+		@Override
+		public Type getRawType() {
+			return rawType;
+		}
+
+		@Override
+		public Type getOwnerType() {
+			return ownerType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ParameterizedType)) {
+				return false;
+			}
+			ParameterizedType other = (ParameterizedType) obj;
+			return rawType.equals(other.getRawType())
+					&& (ownerType == null ? other.getOwnerType() == null : ownerType.equals(other.getOwnerType()))
+					&& Arrays.equals(typeArguments, other.getActualTypeArguments());
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(rawType.getName()).append('<');
+			for (int i = 0; i < typeArguments.length; i++) {
+				sb.append(i == 0 ? "" : ", ").append(typeName(typeArguments[i]));
+			}
+			return sb.append('>').toString();
+		}
+	}
+
+	/**
+	 * {@link WildcardType} implementation matching the JDK's equality contract.
+	 */
+	private static final class WildcardTypeImpl implements WildcardType {
+
+		private final Type[] upperBounds;
+
+		private final Type[] lowerBounds;
+
+		private final int hash;
+
+		WildcardTypeImpl(Type[] upperBounds, Type[] lowerBounds) {
+			this.upperBounds = (upperBounds.length == 0 ? new Type[] { Object.class } : upperBounds);
+			this.lowerBounds = lowerBounds;
+			this.hash = Arrays.hashCode(this.lowerBounds) ^ Arrays.hashCode(this.upperBounds);
+		}
+
+		@Override
+		public Type[] getUpperBounds() {
+			return upperBounds.clone();
+		}
+
+		@Override
+		public Type[] getLowerBounds() {
+			return lowerBounds.clone();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof WildcardType)) {
+				return false;
+			}
+			WildcardType other = (WildcardType) obj;
+			return Arrays.equals(lowerBounds, other.getLowerBounds())
+					&& Arrays.equals(upperBounds, other.getUpperBounds());
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			if (lowerBounds.length > 0) {
+				return "? super " + typeName(lowerBounds[0]);
+			}
+			if (upperBounds[0] == Object.class) {
+				return "?";
+			}
+			return "? extends " + typeName(upperBounds[0]);
+		}
+	}
+
+	private static String typeName(Type type) {
+		return (type instanceof Class ? ((Class<?>) type).getName() : type.toString());
+	}
+}
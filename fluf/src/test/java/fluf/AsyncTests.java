@@ -0,0 +1,195 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class AsyncTests extends TestCase {
+
+	static class Users {
+	}
+
+	static class Orders {
+	}
+
+	static class Prices {
+	}
+
+	static class Config {
+	}
+
+	static class Report {
+		final Users users;
+		final Orders orders;
+		final Prices prices;
+
+		Report(Users users, Orders orders, Prices prices) {
+			this.users = users;
+			this.orders = orders;
+			this.prices = prices;
+		}
+	}
+
+	public class AsyncModule extends Module {
+
+		/** Counted down by every slow dependency, only completes if they are created concurrently. */
+		final CountDownLatch concurrent = new CountDownLatch(3);
+
+		final AtomicInteger configs = new AtomicInteger();
+
+		private void awaitOthers() {
+			concurrent.countDown();
+			try {
+				assertTrue("dependencies should be created concurrently", concurrent.await(10, TimeUnit.SECONDS));
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Bind
+		Users users() {
+			awaitOthers();
+			return new Users();
+		}
+
+		@Bind
+		Orders orders() {
+			awaitOthers();
+			return new Orders();
+		}
+
+		@Bind
+		Prices prices() {
+			awaitOthers();
+			return new Prices();
+		}
+
+		@Bind
+		Report report(Users users, Orders orders, Prices prices) {
+			return new Report(users, orders, prices);
+		}
+
+		@Bind(cache = true)
+		CompletableFuture<Config> config() {
+			configs.incrementAndGet();
+			return CompletableFuture.completedFuture(new Config());
+		}
+
+		@Bind
+		String describe(Config config) {
+			return "config " + (config != null);
+		}
+
+		@Bind
+		Integer number() {
+			return 42;
+		}
+
+		@Bind
+		Long pending(CompletableFuture<Integer> number) {
+			return number.join().longValue();
+		}
+
+		@Bind
+		Short failing() {
+			throw new IllegalStateException("failing provider");
+		}
+	}
+
+	public class CachedModule extends Module {
+
+		final AtomicInteger created = new AtomicInteger();
+
+		@Bind(cache = true)
+		Users users() throws InterruptedException {
+			created.incrementAndGet();
+			Thread.sleep(50);
+			return new Users();
+		}
+	}
+
+	private ExecutorService executor;
+
+	@Override
+	protected void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@Override
+	protected void tearDown() {
+		executor.shutdown();
+	}
+
+	public void testDependenciesResolvedConcurrently() {
+		Injector injector = Fluf.createInjector(new AsyncModule());
+		injector.setExecutor(executor);
+
+		Report report = injector.getAsync(Report.class).join();
+		assertNotNull(report.users);
+		assertNotNull(report.orders);
+		assertNotNull(report.prices);
+	}
+
+	public void testFutureProviders() {
+		AsyncModule module = new AsyncModule();
+		Injector injector = Fluf.createInjector(module);
+		injector.setExecutor(executor);
+
+		// a value can be requested from a provider of its future
+		Config config = injector.getAsync(Config.class).join();
+		assertSame(config, injector.getAsync(Config.class).join());
+		assertEquals(1, module.configs.get());
+
+		// and injected as a dependency, both synchronously and asynchronously
+		assertEquals("config true", injector.get(String.class));
+		assertEquals("config true", injector.getAsync(String.class).join());
+
+		// a future can be injected from a provider of its value
+		assertEquals(Long.valueOf(42), injector.get(Long.class));
+	}
+
+	public void testCachedProviderCreatedOnce() {
+		CachedModule module = new CachedModule();
+		Injector injector = Fluf.createInjector(module);
+		injector.setExecutor(executor);
+
+		CompletableFuture<Users> first = injector.getAsync(Users.class);
+		CompletableFuture<Users> second = injector.getAsync(Users.class);
+		assertSame(first.join(), second.join());
+		assertSame(first.join(), injector.get(Users.class));
+		assertEquals(1, module.created.get());
+	}
+
+	public void testFailuresCompleteExceptionally() {
+		Injector injector = Fluf.createInjector(new AsyncModule());
+		injector.setExecutor(executor);
+
+		try {
+			injector.getAsync(Short.class).join();
+			fail("provider failure should complete the future exceptionally");
+		} catch (CompletionException e) {
+			assertNotNull(e.getCause());
+		}
+		assertNull(injector.getAsync(Character.class).join());
+	}
+}
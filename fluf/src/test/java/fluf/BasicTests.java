@@ -123,6 +123,29 @@ public class BasicTests extends TestCase {
 		testApi.assert2Chars();
 	}
 	
+	public void testProxyObjectMethods(){
+		TestApi testApi = Fluf.createProxy(TestApi.class, new TestModule());
+		assertTrue(testApi.equals(testApi));
+		assertFalse(testApi.equals(Fluf.createProxy(TestApi.class, new TestModule())));
+		assertEquals(System.identityHashCode(testApi), testApi.hashCode());
+		assertTrue(testApi.toString().contains(TestApi.class.getName()));
+		// resolved providers are reused by subsequent calls
+		assertEquals(7, testApi.addition(1));
+		assertEquals(8, testApi.addition(2));
+	}
+	
+	public void testDirectInvocation(){
+		Injector injector = Fluf.createInjector(new TestModule());
+		Provider<?> addition = injector.find(Key.get(Long.class, "addition"), null);
+		Provider<?> chars = injector.find(Key.get(Character[].class, "provide2Chars"), null);
+		// dependency values passed without an array reach the provider method as they are
+		assertEquals(7L, addition.get((Object) 1));
+		assertEquals(8L, addition.get(new Object[] { 2 }));
+		Character[] values = (Character[]) chars.get('x', 'y');
+		assertEquals(Character.valueOf('x'), values[0]);
+		assertEquals(Character.valueOf('y'), values[1]);
+	}
+	
 	public void testAllCharInjector(){
 		TestApi testApi = Fluf.createProxy(TestApi.class, new TestModule());
 		testApi.assertAllChars();
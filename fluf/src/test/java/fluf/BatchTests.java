@@ -0,0 +1,124 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class BatchTests extends TestCase {
+
+	private static final Key<Car> CAR = Key.get(Car.class, "car");
+
+	public static class Engine {
+	}
+
+	public static class Color {
+	}
+
+	public static class Car {
+		final Engine engine;
+		final Color color;
+
+		Car(Engine engine, Color color) {
+			this.engine = engine;
+			this.color = color;
+		}
+	}
+
+	public interface CarFactory {
+		@Bind("painted")
+		List<Car> paint(int count, Color color);
+
+		List<Car> cars(int count);
+	}
+
+	public class BatchModule extends Module {
+
+		final AtomicInteger engines = new AtomicInteger();
+
+		@Bind(cache = true)
+		Engine engine() {
+			engines.incrementAndGet();
+			return new Engine();
+		}
+
+		@Bind
+		Color color() {
+			return new Color();
+		}
+
+		@Bind
+		Car car(Engine engine, Color color) {
+			return new Car(engine, color);
+		}
+
+		@Bind
+		Car painted(Color color) {
+			return new Car(null, color);
+		}
+	}
+
+	public class ListModule extends Module {
+
+		@Bind
+		List<Car> cars(int count) {
+			return null;
+		}
+	}
+
+	public void testGetMany() {
+		BatchModule module = new BatchModule();
+		Injector injector = Fluf.createInjector(module);
+
+		List<Car> cars = injector.getMany(CAR, 3);
+		assertEquals(3, cars.size());
+		assertNotSame(cars.get(0), cars.get(1));
+		// cached dependencies are shared, others are created for every instance
+		assertSame(cars.get(0).engine, cars.get(2).engine);
+		assertNotSame(cars.get(0).color, cars.get(1).color);
+		assertEquals(1, module.engines.get());
+
+		assertTrue(injector.getMany(CAR, 0).isEmpty());
+		assertNull(injector.getMany(Integer.class, 2));
+		try {
+			injector.getMany(CAR, -1);
+			fail("negative count should be rejected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("-1"));
+		}
+	}
+
+	public void testGetManyCached() {
+		Injector injector = Fluf.createInjector(new BatchModule());
+		List<Engine> engines = injector.getMany(Key.get(Engine.class), 2);
+		assertSame(engines.get(0), engines.get(1));
+	}
+
+	public void testBatchFactoryMethods() {
+		CarFactory factory = Fluf.createProxy(CarFactory.class, new BatchModule());
+		Color red = new Color();
+		List<Car> cars = factory.paint(2, red);
+		assertEquals(2, cars.size());
+		assertSame(red, cars.get(0).color);
+		assertSame(red, cars.get(1).color);
+		assertNotSame(cars.get(0), cars.get(1));
+
+		// a provider of the list takes precedence
+		assertNull(Fluf.createProxy(CarFactory.class, new BatchModule(), new ListModule()).cars(2));
+	}
+}
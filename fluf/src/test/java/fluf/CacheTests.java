@@ -0,0 +1,150 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class CacheTests extends TestCase {
+
+	static class Table {
+	}
+
+	static class Template {
+	}
+
+	static class Prices {
+	}
+
+	public class CacheModule extends Module {
+
+		final AtomicInteger tables = new AtomicInteger();
+		final AtomicInteger templates = new AtomicInteger();
+		final AtomicInteger prices = new AtomicInteger();
+
+		@Bind(cache = true, ttl = 50)
+		Table table() {
+			tables.incrementAndGet();
+			return new Table();
+		}
+
+		@Bind(cache = true, reference = CacheReference.WEAK)
+		Template template() {
+			templates.incrementAndGet();
+			return new Template();
+		}
+
+		@Bind(cache = true, ttl = 50, refreshAhead = true)
+		Prices prices() {
+			prices.incrementAndGet();
+			return new Prices();
+		}
+	}
+
+	public class InvalidModule extends Module {
+
+		@Bind(ttl = 50)
+		Table table() {
+			return new Table();
+		}
+	}
+
+	/** Executor running tasks only when asked to. */
+	static class ManualExecutor implements Executor {
+
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		@Override
+		public void execute(Runnable task) {
+			tasks.add(task);
+		}
+
+		void runAll() {
+			for (Runnable task : tasks) {
+				task.run();
+			}
+			tasks.clear();
+		}
+	}
+
+	public void testTimeToLive() throws InterruptedException {
+		CacheModule module = new CacheModule();
+		Injector injector = Fluf.createInjector(module);
+		Table table = injector.get(Table.class);
+		assertSame(table, injector.get(Table.class));
+
+		Thread.sleep(80);
+		assertNotSame(table, injector.get(Table.class));
+		assertEquals(2, module.tables.get());
+
+		CacheStats stats = injector.find(Table.class, null, null).getCacheStats();
+		assertEquals(1, stats.getHits());
+		assertEquals(2, stats.getMisses());
+		assertEquals(1, stats.getEvictions());
+	}
+
+	public void testRefreshAhead() throws InterruptedException {
+		CacheModule module = new CacheModule();
+		Injector injector = Fluf.createInjector(module);
+		ManualExecutor executor = new ManualExecutor();
+		injector.setExecutor(executor);
+
+		Prices prices = injector.get(Prices.class);
+		Thread.sleep(80);
+		// the stale instance is returned while a single refresh is scheduled
+		assertSame(prices, injector.get(Prices.class));
+		assertSame(prices, injector.get(Prices.class));
+		assertEquals(1, executor.tasks.size());
+		assertEquals(1, module.prices.get());
+
+		executor.runAll();
+		Prices refreshed = injector.get(Prices.class);
+		assertNotSame(prices, refreshed);
+		assertEquals(2, module.prices.get());
+
+		CacheStats stats = injector.find(Prices.class, null, null).getCacheStats();
+		assertEquals(1, stats.getMisses());
+		assertEquals(1, stats.getRefreshes());
+		assertEquals(3, stats.getHits());
+	}
+
+	public void testWeakReference() {
+		CacheModule module = new CacheModule();
+		Injector injector = Fluf.createInjector(module);
+		Template template = injector.get(Template.class);
+		assertSame(template, injector.get(Template.class));
+
+		template = null;
+		for (int i = 0; i < 20 && module.templates.get() == 1; i++) {
+			System.gc();
+			injector.get(Template.class);
+		}
+		assertEquals(2, module.templates.get());
+		assertEquals(1, injector.find(Template.class, null, null).getCacheStats().getEvictions());
+	}
+
+	public void testPolicyRequiresCache() {
+		try {
+			Fluf.createInjector(new InvalidModule());
+			fail("ttl without cache should be rejected");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("must be cached"));
+		}
+	}
+}
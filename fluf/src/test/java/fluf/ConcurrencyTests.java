@@ -0,0 +1,188 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+public class ConcurrencyTests extends TestCase {
+
+	static class BaseModule extends Module {
+
+		@Bind
+		String greeting() {
+			return "hello";
+		}
+
+		@Bind
+		Integer length(String greeting) {
+			return greeting.length();
+		}
+	}
+
+	static class ExtraModule extends Module {
+
+		private final long value;
+
+		ExtraModule(long value) {
+			this.value = value;
+		}
+
+		@Bind
+		Long extra() {
+			return value;
+		}
+	}
+
+	static class PairModule extends Module {
+
+		@Bind
+		Long first() {
+			return 1L;
+		}
+
+		@Bind
+		Short second() {
+			return 2;
+		}
+	}
+
+	private static final int READERS = 4;
+	private static final int MODULES = 500;
+
+	public void testConcurrentInstallAndGet() throws Throwable {
+		final Injector injector = Fluf.createInjector(new BaseModule());
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		final AtomicBoolean done = new AtomicBoolean();
+		final CountDownLatch start = new CountDownLatch(1);
+
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < READERS; i++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						int seen = 0;
+						while (!done.get()) {
+							assertEquals("hello", injector.get(String.class));
+							assertEquals(Integer.valueOf(5), injector.get(Integer.class));
+							final int count = injector.getAll(Long.class).size();
+							assertTrue("bindings must never disappear", count >= seen);
+							seen = count;
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			});
+		}
+		threads.add(new Thread() {
+			@Override
+			public void run() {
+				try {
+					start.await();
+					for (int i = 0; i < MODULES; i++) {
+						injector.install(new ExtraModule(i));
+					}
+				} catch (Throwable e) {
+					errors.add(e);
+				} finally {
+					done.set(true);
+				}
+			}
+		});
+
+		for (Thread t : threads) {
+			t.start();
+		}
+		start.countDown();
+		for (Thread t : threads) {
+			t.join();
+		}
+		if (!errors.isEmpty()) {
+			throw errors.get(0);
+		}
+		assertEquals(MODULES, injector.getAll(Long.class).size());
+	}
+
+	public void testConcurrentInstallers() throws Throwable {
+		final Injector injector = Fluf.createInjector(new BaseModule());
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		final CountDownLatch start = new CountDownLatch(1);
+
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < READERS; i++) {
+			final int offset = i * MODULES;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int j = 0; j < MODULES; j++) {
+							injector.install(new ExtraModule(offset + j));
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			});
+		}
+
+		for (Thread t : threads) {
+			t.start();
+		}
+		start.countDown();
+		for (Thread t : threads) {
+			t.join();
+		}
+		if (!errors.isEmpty()) {
+			throw errors.get(0);
+		}
+		assertEquals(READERS * MODULES, injector.getAll(Long.class).size());
+		assertEquals(READERS * MODULES + 2, injector.getProviders().size());
+	}
+
+	public void testModuleProvidersPublishedTogether() throws Throwable {
+		final Injector injector = Fluf.createInjector(new BaseModule());
+		final AtomicBoolean done = new AtomicBoolean();
+		final List<Integer> odd = Collections.synchronizedList(new ArrayList<Integer>());
+		final Thread reader = new Thread() {
+			@Override
+			public void run() {
+				while (!done.get()) {
+					// every module binds two providers, a reader never sees only one of them
+					final int size = injector.getProviders().size();
+					if (size % 2 != 0) {
+						odd.add(size);
+					}
+				}
+			}
+		};
+		reader.start();
+		for (int i = 0; i < MODULES; i++) {
+			injector.install(new PairModule());
+		}
+		done.set(true);
+		reader.join();
+		assertTrue("partially installed modules seen: " + odd, odd.isEmpty());
+		assertEquals(2 * MODULES + 2, injector.getProviders().size());
+	}
+}
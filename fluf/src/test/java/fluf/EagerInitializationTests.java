@@ -0,0 +1,148 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class EagerInitializationTests extends TestCase {
+
+	static class Pool {
+	}
+
+	static class Parser {
+	}
+
+	static class Service {
+	}
+
+	public class SingletonModule extends Module {
+
+		final List<String> initialized = Collections.synchronizedList(new ArrayList<String>());
+
+		/** Counted down by both independent singletons, only completes if they run in parallel. */
+		final CountDownLatch parallel = new CountDownLatch(2);
+
+		@Bind(cache = true)
+		Pool pool() throws InterruptedException {
+			parallel.countDown();
+			assertTrue("pool and parser should be initialized in parallel", parallel.await(10, TimeUnit.SECONDS));
+			initialized.add("pool");
+			return new Pool();
+		}
+
+		@Bind(cache = true)
+		Parser parser() throws InterruptedException {
+			parallel.countDown();
+			assertTrue("pool and parser should be initialized in parallel", parallel.await(10, TimeUnit.SECONDS));
+			initialized.add("parser");
+			return new Parser();
+		}
+
+		@Bind
+		String connection(Pool pool) {
+			return "connection";
+		}
+
+		@Bind(cache = true)
+		Service service(String connection, Parser parser) {
+			initialized.add("service");
+			return new Service();
+		}
+	}
+
+	public class CycleModule extends Module {
+
+		@Bind(cache = true)
+		Pool pool(String name) {
+			return new Pool();
+		}
+
+		@Bind
+		String name(Parser parser) {
+			return "name";
+		}
+
+		@Bind(cache = true)
+		Parser parser(Pool pool) {
+			return new Parser();
+		}
+	}
+
+	public void testParallelInitializationInDependencyOrder() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SingletonModule module = new SingletonModule();
+			Injector injector = Fluf.createInjector(module);
+			Map<Provider<?>, Long> times = injector.initializeSingletons(executor);
+
+			assertEquals(3, times.size());
+			assertEquals(3, module.initialized.size());
+			// the service depends on the pool through the non-cached connection
+			assertEquals("service", module.initialized.get(2));
+			assertSame(injector.get(Service.class), injector.get(Service.class));
+			assertEquals(3, module.initialized.size());
+
+			// already initialized singletons are skipped
+			assertTrue(injector.initializeSingletons(executor).isEmpty());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testCreateInjectorWithExecutor() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SingletonModule module = new SingletonModule();
+			Fluf.createInjector(executor, module);
+			assertEquals(3, module.initialized.size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testDependencyCycle() {
+		Injector injector = Fluf.createInjector(new CycleModule());
+		try {
+			injector.initializeSingletons(Executors.newSingleThreadExecutor());
+			fail("cycle should be detected");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("Dependency cycle"));
+		}
+	}
+
+	public void testRejectedExecution() {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+		SingletonModule module = new SingletonModule();
+		Injector injector = Fluf.createInjector(module);
+		try {
+			injector.initializeSingletons(executor);
+			fail("rejected initialization should be reported");
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+			assertTrue(module.initialized.isEmpty());
+		}
+	}
+}
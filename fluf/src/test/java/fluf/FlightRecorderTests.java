@@ -0,0 +1,77 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that Flight Recorder events are emitted, on JDKs with the {@code jdk.jfr} API.
+ */
+public class FlightRecorderTests extends TestCase {
+
+	static class Service {
+	}
+
+	public class ServiceModule extends Module {
+
+		@Bind
+		Service service() {
+			return new Service();
+		}
+	}
+
+	public void testEventsRecorded() throws Exception {
+		if (!(EventRecorder.INSTANCE instanceof FlightRecorderEvents)) {
+			return; // no Flight Recorder
+		}
+		final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+		final Object recording = recordingClass.getConstructor().newInstance();
+		for (String name : new String[] { "fluf.InjectorCreation", "fluf.ModuleConfiguration", "fluf.Provision" }) {
+			recordingClass.getMethod("enable", String.class).invoke(recording, name);
+		}
+		recordingClass.getMethod("start").invoke(recording);
+		Fluf.createInjector(new ServiceModule()).get(Service.class);
+
+		final File file = File.createTempFile("fluf-events", ".jfr");
+		try {
+			recordingClass.getMethod("stop").invoke(recording);
+			recordingClass.getMethod("dump", Path.class).invoke(recording, file.toPath());
+			final List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+					.getMethod("readAllEvents", Path.class).invoke(null, file.toPath());
+			final Set<String> names = new HashSet<String>();
+			for (Object event : events) {
+				final Object type = event.getClass().getMethod("getEventType").invoke(event);
+				final String name = (String) type.getClass().getMethod("getName").invoke(type);
+				names.add(name);
+				if (name.equals("fluf.Provision")) {
+					assertEquals("service", event.getClass().getMethod("getString", String.class).invoke(event, "binding"));
+				}
+			}
+			assertTrue(names.toString(), names.contains("fluf.InjectorCreation"));
+			assertTrue(names.toString(), names.contains("fluf.ModuleConfiguration"));
+			assertTrue(names.toString(), names.contains("fluf.Provision"));
+		} finally {
+			recordingClass.getMethod("close").invoke(recording);
+			file.delete();
+		}
+	}
+}
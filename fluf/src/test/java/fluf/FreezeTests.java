@@ -0,0 +1,121 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import junit.framework.TestCase;
+
+public class FreezeTests extends TestCase {
+
+	interface TestApi {
+		String text(Integer number);
+		Long missing();
+	}
+
+	public class ValidModule extends Module {
+
+		@Bind
+		Integer number() {
+			return 42;
+		}
+
+		@Bind
+		String text(Integer number) {
+			return "number " + number;
+		}
+	}
+
+	public class BrokenModule extends Module {
+
+		@Bind
+		Integer one() {
+			return 1;
+		}
+
+		@Bind
+		Integer two() {
+			return 2;
+		}
+
+		@Bind
+		String ambiguous(Integer number) {
+			return "number " + number;
+		}
+
+		@Bind
+		Object missing(Long number) {
+			return number;
+		}
+	}
+
+	public class ExtraModule extends Module {
+
+		@Bind
+		Long extra() {
+			return 1L;
+		}
+	}
+
+	public void testFreeze() {
+		Injector injector = Fluf.createInjector(new ValidModule());
+		assertFalse(injector.isFrozen());
+		assertSame(injector, injector.freeze());
+		assertTrue(injector.isFrozen());
+		assertEquals("number 42", injector.get(String.class));
+
+		try {
+			injector.install(new ExtraModule());
+			fail("frozen injector should reject providers");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().contains("frozen"));
+		}
+
+		// frozen injectors can still be extended
+		Injector child = injector.extendWith(new ExtraModule());
+		assertEquals(Long.valueOf(1), child.get(Long.class));
+	}
+
+	public void testFreezeReportsAllErrors() {
+		Injector injector = Fluf.createInjector(new BrokenModule());
+		try {
+			injector.freeze();
+			fail("linking errors should be reported");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Injector has 2 linking error(s)"));
+			assertTrue(e.getMessage(), e.getMessage().contains("ambiguous"));
+			assertTrue(e.getMessage(), e.getMessage().contains("missing"));
+		}
+	}
+
+	public void testFreezeFreezesParents() {
+		Injector parent = Fluf.createInjector(new ValidModule());
+		Injector child = parent.extendWith(new ExtraModule()).freeze();
+		assertTrue(child.isFrozen());
+		assertTrue(parent.isFrozen());
+	}
+
+	public void testProxyIsLinkedEagerly() {
+		Injector injector = Fluf.createInjector(new ValidModule()).freeze();
+		try {
+			Fluf.createProxy(TestApi.class, injector);
+			fail("unresolved proxy method should be reported");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith(TestApi.class.getName() + " has 1 linking error(s)"));
+			assertTrue(e.getMessage(), e.getMessage().contains("missing"));
+		}
+		// unfrozen injectors report missing methods when they are called
+		TestApi api = Fluf.createProxy(TestApi.class, Fluf.createInjector(new ValidModule()));
+		assertEquals("number 7", api.text(7));
+	}
+}
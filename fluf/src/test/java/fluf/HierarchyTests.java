@@ -0,0 +1,143 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collection;
+
+import junit.framework.TestCase;
+
+public class HierarchyTests extends TestCase {
+
+	interface TestApi {
+		Object greeting(String name);
+	}
+
+	public class ParentModule extends Module {
+
+		@Bind
+		String name() {
+			return "parent";
+		}
+
+		@Bind
+		Integer one() {
+			return 1;
+		}
+
+		@Bind
+		Object greeting(String name) {
+			return "hello " + name;
+		}
+	}
+
+	public class ChildModule extends Module {
+
+		@Bind
+		String name() {
+			return "child";
+		}
+
+		@Bind
+		Integer two() {
+			return 2;
+		}
+
+		@Bind
+		long sum(Collection<Integer> numbers) {
+			long sum = 0;
+			for (Integer i : numbers) {
+				sum += i;
+			}
+			return sum;
+		}
+	}
+
+	public void testChildShadowsParent() {
+		Injector parent = Fluf.createInjector(new ParentModule());
+		Injector child = parent.extendWith(new ChildModule());
+
+		assertSame(parent, child.getParent());
+		assertEquals("parent", parent.get(String.class, "name"));
+		assertEquals("child", child.get(String.class, "name"));
+		// parent providers resolve their dependencies in the parent injector
+		assertEquals("hello parent", child.get(Object.class, "greeting"));
+		assertEquals(3, parent.getProviders().size());
+		assertEquals(3, child.getProviders().size());
+	}
+
+	public void testMultipleResultsUnionHierarchy() {
+		Injector parent = Fluf.createInjector(new ParentModule());
+		Injector child = parent.extendWith(new ChildModule());
+
+		assertEquals(1, parent.getAll(Integer.class).size());
+		assertEquals(2, child.getAll(Integer.class).size());
+
+		// collection dependencies are collected from the whole hierarchy
+		assertEquals(Long.valueOf(3), child.get(Long.class));
+
+		TestApi api = Fluf.createProxy(TestApi.class, parent, new ChildModule());
+		assertEquals("hello proxy", api.greeting("proxy"));
+	}
+
+	public void testParentBindingsAreVisibleToChild() {
+		Injector parent = Fluf.createInjector(new ParentModule());
+		Injector child = parent.extendWith();
+		int version = child.getVersion();
+
+		assertEquals(0, child.getProviders().size());
+		assertEquals(Integer.valueOf(1), child.get(Integer.class));
+
+		parent.install(new Module() {
+			@Bind
+			Short number() {
+				return 5;
+			}
+		});
+		assertTrue(child.getVersion() != version);
+		assertEquals(Short.valueOf((short) 5), child.get(Short.class));
+	}
+
+	public void testDeepHierarchyVersion() {
+		Injector root = Fluf.createInjector(new ParentModule());
+		Injector middle = root;
+		for (int i = 0; i < 50; i++) {
+			middle = middle.extendWith();
+		}
+		Injector leaf = middle.extendWith(new ChildModule());
+		Injector sibling = middle.extendWith();
+		assertEquals(Long.valueOf(3), leaf.get(Long.class));
+
+		// providers added to a leaf don't change its sibling's version
+		int version = sibling.getVersion();
+		leaf.install(new Module() {
+			@Bind
+			Short number() {
+				return 5;
+			}
+		});
+		assertEquals(version, sibling.getVersion());
+
+		// providers added anywhere above are seen by linked dependencies
+		version = leaf.getVersion();
+		middle.install(new Module() {
+			@Bind
+			Integer three() {
+				return 3;
+			}
+		});
+		assertTrue(leaf.getVersion() != version);
+		assertEquals(Long.valueOf(6), leaf.get(Long.class));
+	}
+}
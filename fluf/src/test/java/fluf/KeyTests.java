@@ -0,0 +1,103 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class KeyTests extends TestCase {
+
+	static final Key<List<String>> NAMES = Key.get(new TypeLiteral<List<String>>() {}, "names");
+
+	public class KeyModule extends Module {
+
+		@Bind
+		List<String> names() {
+			return Arrays.asList("a", "b");
+		}
+
+		@Bind
+		List<String> others() {
+			return Arrays.asList("c");
+		}
+
+		@Bind
+		int number() {
+			return 42;
+		}
+	}
+
+	static Map<String, List<Integer>> typeSource() {
+		return null;
+	}
+
+	public void testGenericTypesAreCanonical() throws Exception {
+		Method method = KeyTests.class.getDeclaredMethod("typeSource");
+		Type reflected = method.getGenericReturnType();
+		Type created = Types.parameterized(Map.class, String.class, Types.parameterized(List.class, Integer.class));
+		Type literal = new TypeLiteral<Map<String, List<Integer>>>() {}.getType();
+
+		assertSame(Types.canonicalize(reflected), Types.canonicalize(created));
+		assertSame(Types.canonicalize(reflected), literal);
+		assertEquals(reflected, Types.canonicalize(reflected));
+		assertEquals(reflected.hashCode(), Types.canonicalize(reflected).hashCode());
+		assertEquals(Key.get(reflected, null), Key.get(created, null));
+	}
+
+	public void testCanonicalTypesAreNotRetained() {
+		Type type = Types.canonicalize(Types.parameterized(Map.class, Long.class, KeyTests.class));
+		WeakReference<Type> canonical = new WeakReference<Type>(type);
+		type = null;
+		for (int i = 0; i < 20 && canonical.get() != null; i++) {
+			System.gc();
+		}
+		assertNull(canonical.get());
+	}
+
+	public void testPrimitiveKeysAreBoxed() {
+		assertEquals(Key.get(Integer.class), Key.get(int.class));
+		assertSame(Integer.class, Key.get(int.class).getType());
+	}
+
+	public void testInjectorGetByKey() {
+		Injector injector = Fluf.createInjector(new KeyModule());
+		assertEquals(Arrays.asList("a", "b"), injector.get(NAMES));
+		assertEquals(Integer.valueOf(42), injector.get(Key.get(Integer.class)));
+		assertEquals(Integer.valueOf(42), injector.getAsync(Key.get(int.class)).join());
+
+		Set<List<String>> all = injector.getAll(Key.get(new TypeLiteral<List<String>>() {}));
+		assertEquals(2, all.size());
+		assertEquals(NAMES, injector.find(NAMES, null).getKey());
+	}
+
+	public void testTypeLiteralTypeIsReused() {
+		Type first = null;
+		for (int i = 0; i < 2; i++) {
+			Type type = new TypeLiteral<List<String>>() {}.getType();
+			if (first != null) {
+				assertSame(first, type);
+			}
+			first = type;
+		}
+	}
+}
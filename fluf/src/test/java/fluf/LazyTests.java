@@ -0,0 +1,130 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class LazyTests extends TestCase {
+
+	static class Index {
+	}
+
+	static class Search {
+		final Lazy<Index> index;
+
+		Search(Lazy<Index> index) {
+			this.index = index;
+		}
+	}
+
+	static class Parent {
+		final Lazy<Child> child;
+
+		Parent(Lazy<Child> child) {
+			this.child = child;
+		}
+	}
+
+	static class Child {
+		final Parent parent;
+
+		Child(Parent parent) {
+			this.parent = parent;
+		}
+	}
+
+	static class Optional {
+		final Lazy<Integer> missing;
+
+		Optional(Lazy<Integer> missing) {
+			this.missing = missing;
+		}
+	}
+
+	public class LazyModule extends Module {
+
+		final AtomicInteger indexes = new AtomicInteger();
+
+		@Bind
+		Index index() {
+			indexes.incrementAndGet();
+			return new Index();
+		}
+
+		@Bind
+		Search search(Lazy<Index> index) {
+			return new Search(index);
+		}
+
+		@Bind
+		Optional optional(@Bind("nothing") Lazy<Integer> missing) {
+			return new Optional(missing);
+		}
+	}
+
+	public class CycleModule extends Module {
+
+		@Bind(cache = true)
+		Parent parent(Lazy<Child> child) {
+			return new Parent(child);
+		}
+
+		@Bind
+		Child child(Parent parent) {
+			return new Child(parent);
+		}
+	}
+
+	public void testCreatedOnFirstUse() {
+		LazyModule module = new LazyModule();
+		Injector injector = Fluf.createInjector(module);
+
+		Search search = injector.get(Search.class);
+		assertFalse(search.index.isResolved());
+		assertEquals(0, module.indexes.get());
+
+		Index index = search.index.get();
+		assertNotNull(index);
+		assertTrue(search.index.isResolved());
+		assertSame(index, search.index.get());
+		assertEquals(1, module.indexes.get());
+
+		// every injection gets its own instance
+		assertNotSame(index, injector.get(Search.class).index.get());
+		assertEquals(2, module.indexes.get());
+	}
+
+	public void testMissingBindingFailsOnUse() {
+		Optional optional = Fluf.createInjector(new LazyModule()).get(Optional.class);
+		assertNotNull(optional);
+		try {
+			optional.missing.get();
+			fail("missing binding should fail when used");
+		} catch (NullPointerException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("nothing"));
+		}
+		assertFalse(optional.missing.isResolved());
+	}
+
+	public void testBreaksCycles() {
+		Injector injector = Fluf.createInjector(new CycleModule());
+		Parent parent = injector.get(Parent.class);
+		assertSame(parent, parent.child.get().parent);
+		assertSame(parent.child.get(), parent.child.get());
+	}
+}
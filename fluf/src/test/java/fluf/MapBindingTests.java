@@ -0,0 +1,124 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class MapBindingTests extends TestCase {
+
+	static class Codec {
+		final String contentType;
+
+		Codec(String contentType) {
+			this.contentType = contentType;
+		}
+	}
+
+	static class Codecs {
+		final Map<String, Codec> codecs;
+		final Map<String, Provider<Codec>> providers;
+
+		Codecs(Map<String, Codec> codecs, Map<String, Provider<Codec>> providers) {
+			this.codecs = codecs;
+			this.providers = providers;
+		}
+	}
+
+	public class CodecModule extends Module {
+
+		final AtomicInteger created = new AtomicInteger();
+
+		@Bind
+		Codec json() {
+			created.incrementAndGet();
+			return new Codec("application/json");
+		}
+
+		@Bind
+		Codec xml() {
+			created.incrementAndGet();
+			return new Codec("application/xml");
+		}
+
+		@Bind(cache = true)
+		Codec text() {
+			created.incrementAndGet();
+			return new Codec("text/plain");
+		}
+
+		@Bind
+		Codecs codecs(Map<String, Codec> codecs, Map<String, Provider<Codec>> providers) {
+			return new Codecs(codecs, providers);
+		}
+	}
+
+	public void testMapDependencies() {
+		CodecModule module = new CodecModule();
+		Injector injector = Fluf.createInjector(module);
+		Codecs codecs = injector.get(Codecs.class);
+		assertEquals(0, module.created.get());
+
+		assertEquals("application/xml", codecs.codecs.get("xml").contentType);
+		assertEquals(1, module.created.get());
+		assertNull(codecs.codecs.get("yaml"));
+		assertEquals(3, codecs.codecs.size());
+		assertTrue(codecs.codecs.containsKey("json"));
+
+		assertEquals(3, codecs.providers.size());
+		assertSame(codecs.providers.get("text").get(), codecs.codecs.get("text"));
+		try {
+			codecs.codecs.clear();
+			fail("map should be unmodifiable");
+		} catch (UnsupportedOperationException e) {
+		}
+	}
+
+	public void testGetMap() {
+		CodecModule module = new CodecModule();
+		Injector injector = Fluf.createInjector(module);
+		Map<String, Codec> codecs = injector.getMap(Codec.class);
+		assertSame(codecs, injector.getMap(Codec.class));
+		assertEquals("application/json", codecs.get("json").contentType);
+		assertEquals(1, module.created.get());
+
+		assertEquals(2, injector.getMap(Key.get(Codec.class, "[jx].+")).size());
+
+		Injector child = injector.extendWith(new Module() {
+			@Bind
+			Codec json() {
+				return new Codec("application/json+child");
+			}
+		});
+		Map<String, Codec> inherited = child.getMap(Codec.class);
+		assertEquals(3, inherited.size());
+		assertEquals("application/json+child", inherited.get("json").contentType);
+		assertEquals("application/xml", inherited.get("xml").contentType);
+		assertSame(inherited, child.getMap(Codec.class));
+
+		injector.install(new Module() {
+			@Bind
+			Codec yaml() {
+				return new Codec("application/yaml");
+			}
+		});
+		assertEquals(4, injector.getMap(Codec.class).size());
+		assertEquals("application/yaml", child.getMap(Codec.class).get("yaml").contentType);
+		assertSame(child.getMap(Codec.class), child.getMap(Codec.class));
+	}
+}
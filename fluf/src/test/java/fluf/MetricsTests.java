@@ -0,0 +1,131 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class MetricsTests extends TestCase {
+
+	public static class Config {
+	}
+
+	public static class Service {
+		final Config config;
+
+		Service(Config config) {
+			this.config = config;
+		}
+	}
+
+	public interface ServiceFactory {
+		Service service(Config config);
+	}
+
+	public class MetricsModule extends Module {
+
+		@Bind(cache = true)
+		Config config() {
+			return new Config();
+		}
+
+		@Bind
+		Service service(Config config) {
+			return new Service(config);
+		}
+	}
+
+	public void testBindingStats() {
+		InjectorMetrics metrics = new InjectorMetrics();
+		Injector injector = Fluf.createInjector(metrics, new MetricsModule());
+		for (int i = 0; i < 3; i++) {
+			injector.get(Service.class);
+		}
+		Provider<?> config = injector.find(Config.class, null, null);
+		Provider<?> service = injector.find(Service.class, null, null);
+
+		BindingStats configStats = metrics.getStats(config);
+		assertEquals(1, configStats.getProvisions());
+		assertEquals(1, configStats.getCacheMisses());
+		assertEquals(2, configStats.getCacheHits());
+
+		BindingStats serviceStats = metrics.getStats(service);
+		assertEquals(3, serviceStats.getProvisions());
+		assertEquals(3, serviceStats.getProvisionLatency().getCount());
+		assertEquals(0, serviceStats.getCacheHits());
+		assertTrue(serviceStats.getLookups() >= 3);
+
+		assertNull(injector.get(String.class));
+		assertEquals(1, metrics.getFailedLookups());
+		assertTrue(metrics.getLookupLatency().getCount() >= 7);
+
+		Map<Key<?>, BindingStats> all = metrics.getStats();
+		assertEquals(2, all.size());
+		assertEquals(3, all.get(Key.get(Service.class, "service")).getProvisions());
+	}
+
+	public void testProxyCalls() {
+		InjectorMetrics metrics = new InjectorMetrics();
+		Injector injector = Fluf.createInjector(metrics, new MetricsModule());
+		ServiceFactory factory = Fluf.createProxy(ServiceFactory.class, injector);
+		factory.service(new Config());
+		factory.service(new Config());
+
+		BindingStats stats = metrics.getStats(injector.find(Service.class, null, null));
+		assertEquals(2, stats.getProxyCalls());
+		assertEquals(2, stats.getProvisions());
+	}
+
+	public void testExtendingInjectorInheritsListener() {
+		InjectorMetrics metrics = new InjectorMetrics();
+		Injector child = Fluf.createInjector(metrics, new MetricsModule()).extendWith();
+		child.get(Service.class);
+		assertEquals(1, metrics.getStats(child.find(Service.class, null, null)).getProvisions());
+	}
+
+	public void testExtendingInjectorsShareBindingStats() {
+		InjectorMetrics metrics = new InjectorMetrics();
+		Injector parent = Fluf.createInjector(metrics);
+		for (int i = 0; i < 10; i++) {
+			parent.extendWith(new MetricsModule()).get(Service.class);
+		}
+		// providers of discarded children are not kept by their counters
+		assertEquals(2, metrics.getStats().size());
+		assertEquals(10, metrics.getStats(Key.get(Service.class, "service")).getProvisions());
+		assertEquals(10, metrics.getStats(Key.get(Config.class, "config")).getCacheMisses());
+	}
+
+	public void testLatencyHistogram() {
+		for (long value : new long[] { 0, 1, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE }) {
+			int bucket = LatencyHistogram.bucket(value);
+			assertTrue(value + " above its bucket", value <= LatencyHistogram.upperBound(bucket));
+			assertTrue(value + " below its bucket", bucket == 0 || value > LatencyHistogram.upperBound(bucket - 1));
+		}
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000);
+		}
+		LatencyStats stats = histogram.snapshot();
+		assertEquals(100, stats.getCount());
+		assertEquals(100000, stats.getMax());
+		assertEquals(50500.0, stats.getMean());
+		long p50 = stats.getPercentile(50);
+		assertTrue(String.valueOf(p50), p50 >= 50000 && p50 <= 50000 * 1.125);
+		assertEquals(100000, stats.getPercentile(100));
+	}
+}
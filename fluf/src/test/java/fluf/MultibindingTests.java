@@ -0,0 +1,196 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+
+public class MultibindingTests extends TestCase {
+
+	/** Equal to every other handler, like a value object. */
+	static class Handler {
+		final String name;
+
+		Handler(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Handler;
+		}
+
+		@Override
+		public int hashCode() {
+			return 1;
+		}
+	}
+
+	static class Lazy {
+		final Iterable<Handler> handlers;
+
+		Lazy(Iterable<Handler> handlers) {
+			this.handlers = handlers;
+		}
+	}
+
+	static class Streamed {
+		final Stream<Handler> handlers;
+
+		Streamed(Stream<Handler> handlers) {
+			this.handlers = handlers;
+		}
+	}
+
+	static class Ordered {
+		final List<Handler> handlers;
+
+		Ordered(List<Handler> handlers) {
+			this.handlers = handlers;
+		}
+	}
+
+	static class Registry {
+		final Collection<Provider<Handler>> handlers;
+
+		Registry(Collection<Provider<Handler>> handlers) {
+			this.handlers = handlers;
+		}
+	}
+
+	static class Unique {
+		final Set<Handler> handlers;
+
+		Unique(Set<Handler> handlers) {
+			this.handlers = handlers;
+		}
+	}
+
+	public class HandlerModule extends Module {
+
+		final AtomicInteger created = new AtomicInteger();
+
+		@Bind
+		Handler first() {
+			created.incrementAndGet();
+			return new Handler("first");
+		}
+
+		@Bind
+		Handler second() {
+			created.incrementAndGet();
+			return new Handler("second");
+		}
+
+		@Bind
+		Handler third() {
+			created.incrementAndGet();
+			return new Handler("third");
+		}
+
+		@Bind
+		Lazy lazy(Iterable<Handler> handlers) {
+			return new Lazy(handlers);
+		}
+
+		@Bind
+		Streamed streamed(Stream<Handler> handlers) {
+			return new Streamed(handlers);
+		}
+
+		@Bind
+		Ordered ordered(List<Handler> handlers) {
+			return new Ordered(handlers);
+		}
+
+		@Bind
+		Registry registry(Collection<Provider<Handler>> handlers) {
+			return new Registry(handlers);
+		}
+
+		@Bind
+		Unique unique(Set<Handler> handlers) {
+			return new Unique(handlers);
+		}
+	}
+
+	private static List<String> names(Iterable<Handler> handlers) {
+		List<String> names = new ArrayList<String>();
+		for (Handler handler : handlers) {
+			names.add(handler.name);
+		}
+		return names;
+	}
+
+	public void testIterableIsLazy() {
+		HandlerModule module = new HandlerModule();
+		Injector injector = Fluf.createInjector(module);
+		Lazy lazy = injector.get(Lazy.class);
+		assertEquals(0, module.created.get());
+
+		Iterator<Handler> it = lazy.handlers.iterator();
+		assertEquals("first", it.next().name);
+		assertEquals(1, module.created.get());
+		assertEquals(3, names(lazy.handlers).size());
+	}
+
+	public void testStreamIsLazy() {
+		HandlerModule module = new HandlerModule();
+		Injector injector = Fluf.createInjector(module);
+		assertEquals("first", injector.get(Streamed.class).handlers.findFirst().get().name);
+		assertEquals(1, module.created.get());
+
+		assertEquals("second", injector.stream(Handler.class, "sec.*").findFirst().get().name);
+		assertEquals(2, module.created.get());
+
+		List<String> parallel = injector.stream(Handler.class).parallel()
+				.map(new java.util.function.Function<Handler, String>() {
+					@Override
+					public String apply(Handler handler) {
+						return handler.name;
+					}
+				}).collect(Collectors.<String>toList());
+		assertEquals(names(injector.get(Ordered.class).handlers), parallel);
+	}
+
+	public void testOrderedListKeepsEqualInstances() {
+		Injector injector = Fluf.createInjector(new HandlerModule());
+		List<String> names = names(injector.get(Ordered.class).handlers);
+		assertEquals(3, names.size());
+		assertEquals("first", names.get(0));
+		assertEquals("third", names.get(2));
+		// equal handlers collapse in set dependencies
+		assertEquals(1, injector.get(Unique.class).handlers.size());
+	}
+
+	public void testProviderCollection() {
+		HandlerModule module = new HandlerModule();
+		Injector injector = Fluf.createInjector(module);
+		Collection<Provider<Handler>> handlers = injector.get(Registry.class).handlers;
+		assertEquals(3, handlers.size());
+		assertEquals(0, module.created.get());
+		assertEquals("first", handlers.iterator().next().get().name);
+		assertEquals(new ArrayList<Provider<Handler>>(handlers), injector.getAllProviders(Key.get(Handler.class)));
+	}
+}
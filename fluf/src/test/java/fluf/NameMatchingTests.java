@@ -0,0 +1,114 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class NameMatchingTests extends TestCase {
+
+	static class Wheel {
+		final String position;
+
+		Wheel(String position) {
+			this.position = position;
+		}
+	}
+
+	public class WheelModule extends Module {
+
+		@Bind
+		Wheel frontWheel() {
+			return new Wheel("front");
+		}
+
+		@Bind
+		Wheel frontWheel2() {
+			return new Wheel("front2");
+		}
+
+		@Bind
+		Wheel backWheel() {
+			return new Wheel("back");
+		}
+
+		@Bind
+		Wheel spare() {
+			return new Wheel("spare");
+		}
+	}
+
+	public class ExtraModule extends Module {
+
+		@Bind
+		Wheel extraWheel() {
+			return new Wheel("extra");
+		}
+	}
+
+	private static Set<String> positions(Collection<Wheel> wheels) {
+		Set<String> positions = new HashSet<String>();
+		for (Wheel wheel : wheels) {
+			positions.add(wheel.position);
+		}
+		return positions;
+	}
+
+	public void testLiteralNames() {
+		assertTrue(ProviderFinder.isLiteral("frontWheel"));
+		assertFalse(ProviderFinder.isLiteral(".+Wheel"));
+		assertFalse(ProviderFinder.isLiteral("front[a-z]+"));
+
+		Injector injector = Fluf.createInjector(new WheelModule());
+		assertEquals("front", injector.get(Wheel.class, "frontWheel").position);
+		assertEquals("front2", injector.get(Wheel.class, "frontWheel2").position);
+		assertNull(injector.get(Wheel.class, "front"));
+	}
+
+	public void testPatternNames() {
+		Injector injector = Fluf.createInjector(new WheelModule());
+		assertEquals(positions(injector.getAll(Wheel.class, ".+Wheel")), positions(injector.getAll(Wheel.class, ".+Wheel")));
+		assertEquals(3, injector.getAll(Wheel.class, ".+Wheel.*").size());
+		assertEquals(2, injector.getAll(Wheel.class, "front.*").size());
+		assertEquals("back", injector.get(Wheel.class, "b.*").position);
+	}
+
+	public void testMatchesFollowBindings() {
+		Injector injector = Fluf.createInjector(new WheelModule());
+		assertEquals(2, injector.getAll(Wheel.class, "[a-z]+Wheel").size());
+
+		assertNull(injector.get(Wheel.class, "extraWheel"));
+
+		injector.install(new ExtraModule());
+		assertEquals("extra", injector.get(Wheel.class, "extraWheel").position);
+		assertEquals("front", injector.get(Wheel.class, "frontWheel").position);
+		assertTrue(positions(injector.getAll(Wheel.class, "[a-z]+Wheel")).contains("extra"));
+		assertEquals(3, injector.getAll(Wheel.class, "[a-z]+Wheel").size());
+
+		Injector child = injector.extendWith(new Module() {
+			@Bind
+			Wheel childWheel() {
+				return new Wheel("child");
+			}
+		});
+		assertEquals(4, child.getAll(Wheel.class, "[a-z]+Wheel").size());
+		assertEquals("child", child.get(Wheel.class, "childWheel").position);
+		assertEquals("spare", child.get(Wheel.class, "spare").position);
+	}
+}
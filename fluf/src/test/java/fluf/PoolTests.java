@@ -0,0 +1,140 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import junit.framework.TestCase;
+
+public class PoolTests extends TestCase {
+
+	static class Codec {
+		boolean broken;
+	}
+
+	static class Buffer {
+	}
+
+	static class CodecValidator implements Predicate<Codec> {
+
+		@Override
+		public boolean test(Codec codec) {
+			return !codec.broken;
+		}
+	}
+
+	public class PoolModule extends Module {
+
+		final AtomicInteger codecs = new AtomicInteger();
+		final AtomicInteger buffers = new AtomicInteger();
+
+		@Bind(pool = 2, poolValidator = CodecValidator.class)
+		Codec codec() {
+			codecs.incrementAndGet();
+			return new Codec();
+		}
+
+		@Bind
+		Buffer buffer() {
+			buffers.incrementAndGet();
+			return new Buffer();
+		}
+	}
+
+	public class InvalidModule extends Module {
+
+		@Bind(cache = true, pool = 2)
+		Codec codec() {
+			return new Codec();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Provider<T> provider(Injector injector, Class<T> type) {
+		return injector.find(type, null, null);
+	}
+
+	public void testLeaseReusesInstances() {
+		PoolModule module = new PoolModule();
+		Provider<Codec> provider = provider(Fluf.createInjector(module), Codec.class);
+
+		Codec first;
+		try (Lease<Codec> lease = provider.lease()) {
+			first = lease.get();
+		}
+		try (Lease<Codec> lease = provider.lease()) {
+			assertSame(first, lease.get());
+		}
+		assertEquals(1, module.codecs.get());
+	}
+
+	public void testPoolIsBounded() {
+		PoolModule module = new PoolModule();
+		Provider<Codec> provider = provider(Fluf.createInjector(module), Codec.class);
+
+		Codec a = provider.get();
+		Codec b = provider.get();
+		Codec c = provider.get();
+		provider.release(a);
+		provider.release(b);
+		provider.release(c); // dropped, the pool keeps 2 idle instances
+		provider.get();
+		provider.get();
+		assertEquals(3, module.codecs.get());
+		provider.get();
+		assertEquals(4, module.codecs.get());
+	}
+
+	public void testValidatorDropsInstances() {
+		PoolModule module = new PoolModule();
+		Provider<Codec> provider = provider(Fluf.createInjector(module), Codec.class);
+
+		Lease<Codec> lease = provider.lease();
+		Codec codec = lease.get();
+		codec.broken = true;
+		lease.close();
+		lease.close();
+		try {
+			lease.get();
+			fail("closed lease should not hand out its instance");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertNotSame(codec, provider.get());
+		assertEquals(2, module.codecs.get());
+	}
+
+	public void testLeaseOfUnpooledProvider() {
+		PoolModule module = new PoolModule();
+		Provider<Buffer> provider = provider(Fluf.createInjector(module), Buffer.class);
+
+		Buffer buffer;
+		try (Lease<Buffer> lease = provider.lease()) {
+			buffer = lease.get();
+		}
+		assertNotSame(buffer, provider.get());
+		assertEquals(2, module.buffers.get());
+	}
+
+	public void testPooledAndCached() {
+		try {
+			Fluf.createInjector(new InvalidModule());
+			fail("cached and pooled provider should be rejected");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("to use a pool"));
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+public class ScopeTests extends TestCase {
+
+	static class Connection {
+	}
+
+	static class Request {
+	}
+
+	static class Job {
+	}
+
+	public static class Size {
+	}
+
+	public static class Wheel {
+		final Size size;
+
+		Wheel(Size size) {
+			this.size = size;
+		}
+	}
+
+	public static class Bike {
+		final Wheel front;
+		final Wheel back;
+		final Size size;
+
+		Bike(Wheel front, Wheel back, Size size) {
+			this.front = front;
+			this.back = back;
+			this.size = size;
+		}
+	}
+
+	public interface BikeFactory {
+		Bike bike(Size size);
+	}
+
+	/** Scope whose context is set by the test, like a scope backed by a ScopedValue. */
+	static class JobScope extends ContextScope {
+
+		static ScopeContext context;
+
+		@Override
+		protected ScopeContext currentContext() {
+			return context;
+		}
+	}
+
+	public class ScopedModule extends Module {
+
+		@Bind(scope = ThreadScope.class)
+		Connection connection() {
+			return new Connection();
+		}
+
+		@Bind(scope = RequestScope.class)
+		Request request() {
+			return new Request();
+		}
+
+		@Bind(scope = JobScope.class)
+		Job job() {
+			return new Job();
+		}
+	}
+
+	public class GraphModule extends Module {
+
+		final AtomicInteger sizes = new AtomicInteger();
+
+		@Bind(scope = ResolutionScope.class)
+		Size size() {
+			sizes.incrementAndGet();
+			return new Size();
+		}
+
+		@Bind
+		Wheel wheel(Size size) {
+			return new Wheel(size);
+		}
+
+		@Bind
+		Bike bike(Wheel front, Wheel back) {
+			// lookups made while creating an instance are part of its resolution
+			return new Bike(front, back, getInjector().get(Size.class));
+		}
+	}
+
+	public class FactoryModule extends Module {
+
+		@Bind(scope = ResolutionScope.class)
+		Wheel wheel() {
+			return new Wheel(null);
+		}
+
+		@Bind
+		Bike bike(Size size) {
+			return new Bike(getInjector().get(Wheel.class), getInjector().get(Wheel.class), size);
+		}
+	}
+
+	public class InvalidModule extends Module {
+
+		@Bind(cache = true, scope = ThreadScope.class)
+		Connection connection() {
+			return new Connection();
+		}
+	}
+
+	public void testThreadScope() throws InterruptedException {
+		final Injector injector = Fluf.createInjector(new ScopedModule());
+		Connection connection = injector.get(Connection.class);
+		assertSame(connection, injector.get(Connection.class));
+
+		final AtomicReference<Connection> other = new AtomicReference<Connection>();
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				other.set(injector.get(Connection.class));
+			}
+		};
+		thread.start();
+		thread.join();
+		assertNotNull(other.get());
+		assertNotSame(connection, other.get());
+
+		ThreadScope.remove(injector.getAllProviders(Key.get(Connection.class)).get(0));
+		assertNotSame(connection, injector.get(Connection.class));
+	}
+
+	public void testRequestScope() {
+		Injector injector = Fluf.createInjector(new ScopedModule());
+		try {
+			injector.get(Request.class);
+			fail("request scope is not active");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("RequestScope is not active"));
+		}
+
+		ScopeContext previous = RequestScope.enter();
+		assertNull(previous);
+		ScopeContext first = RequestScope.current();
+		Request request;
+		try {
+			request = injector.get(Request.class);
+			assertSame(request, injector.get(Request.class));
+		} finally {
+			RequestScope.exit(previous);
+		}
+		assertNull(RequestScope.current());
+
+		previous = RequestScope.enter();
+		try {
+			assertNotSame(request, injector.get(Request.class));
+		} finally {
+			RequestScope.exit(previous);
+		}
+
+		previous = RequestScope.enter(first);
+		try {
+			assertSame(request, injector.get(Request.class));
+		} finally {
+			RequestScope.exit(previous);
+		}
+	}
+
+	public void testNestedRequestScope() {
+		Injector injector = Fluf.createInjector(new ScopedModule());
+		ScopeContext none = RequestScope.enter();
+		try {
+			Request request = injector.get(Request.class);
+			ScopeContext outer = RequestScope.enter();
+			try {
+				assertNotSame(request, injector.get(Request.class));
+			} finally {
+				RequestScope.exit(outer);
+			}
+			assertSame(request, injector.get(Request.class));
+		} finally {
+			RequestScope.exit(none);
+		}
+		assertNull(RequestScope.current());
+	}
+
+	public void testContextScope() {
+		Injector injector = Fluf.createInjector(new ScopedModule());
+		JobScope.context = new ScopeContext();
+		Job job = injector.get(Job.class);
+		assertSame(job, injector.get(Job.class));
+
+		JobScope.context = new ScopeContext();
+		assertNotSame(job, injector.get(Job.class));
+		JobScope.context = null;
+	}
+
+	public void testResolutionScope() {
+		GraphModule module = new GraphModule();
+		Injector injector = Fluf.createInjector(module);
+
+		Bike bike = injector.get(Bike.class);
+		assertSame(bike.front.size, bike.back.size);
+		assertSame(bike.size, bike.front.size);
+		assertEquals(1, module.sizes.get());
+
+		// the next resolution creates a new instance
+		Bike other = injector.get(Bike.class);
+		assertNotSame(bike.size, other.size);
+		assertEquals(2, module.sizes.get());
+
+		// a top-level lookup of the scoped provider is a resolution of its own
+		assertNotSame(injector.get(Size.class), injector.get(Size.class));
+		assertEquals(4, module.sizes.get());
+	}
+
+	public void testResolutionScopeInProxyCall() {
+		BikeFactory factory = Fluf.createProxy(BikeFactory.class, new FactoryModule());
+		Size size = new Size();
+		Bike bike = factory.bike(size);
+		assertSame(bike.front, bike.back);
+		assertSame(size, bike.size);
+		assertNotSame(bike.front, factory.bike(size).front);
+	}
+
+	public void testCachedAndScoped() {
+		try {
+			Fluf.createInjector(new InvalidModule());
+			fail("cached and scoped provider should be rejected");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().contains("cannot be both cached and scoped"));
+		}
+	}
+}
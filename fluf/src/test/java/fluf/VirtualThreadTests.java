@@ -0,0 +1,310 @@
+package fluf;
+
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Cold singleton initialization under load and dependency cycles that would block it. On JDKs
+ * with virtual threads the load also runs on virtual threads while JFR records
+ * {@code jdk.VirtualThreadPinned} events, otherwise that test reports itself as skipped.
+ */
+public class VirtualThreadTests extends TestCase {
+
+	static class Pool {
+	}
+
+	static class Parser {
+	}
+
+	public class SlowModule extends Module {
+
+		final AtomicInteger created = new AtomicInteger();
+
+		@Bind(cache = true)
+		Pool pool() throws InterruptedException {
+			created.incrementAndGet();
+			Thread.sleep(100); // like opening connections
+			return new Pool();
+		}
+	}
+
+	public class CycleModule extends Module {
+
+		@Bind(cache = true)
+		Pool pool(Parser parser) {
+			return new Pool();
+		}
+
+		@Bind
+		Parser parser(Pool pool) {
+			return new Parser();
+		}
+	}
+
+	public class ReentrantModule extends Module {
+
+		@Bind(cache = true)
+		Pool pool() {
+			// a cycle the dependency plan can't see
+			getInjector().get(Pool.class);
+			return new Pool();
+		}
+	}
+
+	public class AsyncCycleModule extends Module {
+
+		@Bind(cache = true)
+		Pool pool() {
+			// waits for a parser created on another thread
+			getInjector().getAsync(Parser.class).join();
+			return new Pool();
+		}
+
+		@Bind
+		Parser parser(Pool pool) {
+			return new Parser();
+		}
+	}
+
+	public class ExpiringAsyncCycleModule extends Module {
+
+		@Bind(cache = true, ttl = 60000)
+		Pool pool() {
+			// waits for a parser created on another thread
+			getInjector().getAsync(Parser.class).join();
+			return new Pool();
+		}
+
+		@Bind
+		Parser parser(Pool pool) {
+			return new Parser();
+		}
+	}
+
+	public class LazyCycleModule extends Module {
+
+		@Bind(cache = true)
+		Pool pool(final Lazy<Parser> parser) throws Exception {
+			// resolves the parser on another thread and waits for it
+			final ExecutorService executor = Executors.newSingleThreadExecutor();
+			try {
+				executor.submit(new Callable<Parser>() {
+					@Override
+					public Parser call() {
+						return parser.get();
+					}
+				}).get();
+			} finally {
+				executor.shutdown();
+			}
+			return new Pool();
+		}
+
+		@Bind
+		Parser parser(Pool pool) {
+			return new Parser();
+		}
+	}
+
+	private static final int VIRTUAL_THREADS = 10000;
+	private static final int PLATFORM_THREADS = 100;
+
+	public void testColdSingletonUnderLoad() throws Exception {
+		final SlowModule module = new SlowModule();
+		final Set<Pool> pools = load(Fluf.createInjector(module), null);
+		assertEquals(1, module.created.get());
+		assertEquals(1, pools.size());
+	}
+
+	public void testColdSingletonOnVirtualThreads() throws Exception {
+		final Method ofVirtual = virtualThreadBuilder();
+		if (ofVirtual == null) {
+			System.err.println("VirtualThreadTests.testColdSingletonOnVirtualThreads skipped: "
+					+ System.getProperty("java.version") + " has no virtual threads");
+			return;
+		}
+		final SlowModule module = new SlowModule();
+		final Injector injector = Fluf.createInjector(module);
+		final Object recording = startPinnedRecording();
+		final Set<Pool> pools = load(injector, ofVirtual);
+		assertEquals("virtual threads were pinned", 0, stopRecording(recording));
+		assertEquals(1, module.created.get());
+		assertEquals(1, pools.size());
+	}
+
+	public void testDependencyCycleFailsFast() {
+		Injector injector = Fluf.createInjector(new CycleModule());
+		try {
+			injector.get(Pool.class);
+			fail("cycle should be detected");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Dependency cycle"));
+		}
+	}
+
+	public void testReentrantInitializationFailsFast() {
+		Injector injector = Fluf.createInjector(new ReentrantModule());
+		try {
+			injector.get(Pool.class);
+			fail("cycle should be detected");
+		} catch (RuntimeException e) {
+			Throwable cause = e;
+			while (cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			assertTrue(cause.getMessage(), cause.getMessage().startsWith("Dependency cycle"));
+		}
+	}
+
+	public void testCycleAcrossAsyncThreadsFailsFast() throws Exception {
+		assertCycle(getWithTimeout(Fluf.createInjector(new AsyncCycleModule())));
+	}
+
+	public void testCycleAcrossAsyncThreadsWithTtlFailsFast() throws Exception {
+		assertCycle(getWithTimeout(Fluf.createInjector(new ExpiringAsyncCycleModule())));
+	}
+
+	public void testCycleThroughLazyOnOtherThreadFailsFast() throws Exception {
+		assertCycle(getWithTimeout(Fluf.createInjector(new LazyCycleModule())));
+	}
+
+	private static void assertCycle(Throwable error) {
+		assertNotNull("cycle should be detected", error);
+		Throwable cause = error;
+		while (cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		assertTrue(cause.getMessage(), cause.getMessage().startsWith("Dependency cycle"));
+	}
+
+	/**
+	 * Gets the {@link Pool} on another thread, failing instead of waiting for a deadlock.
+	 * 
+	 * @return the error getting it or null if there was none
+	 */
+	private static Throwable getWithTimeout(final Injector injector) throws Exception {
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final List<Throwable> errors = new ArrayList<Throwable>();
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						injector.get(Pool.class);
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			});
+			executor.shutdown();
+			assertTrue("deadlocked", executor.awaitTermination(10, TimeUnit.SECONDS));
+			return (errors.isEmpty() ? null : errors.get(0));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Gets the {@link Pool} from many threads at once, virtual ones if a builder is given.
+	 * 
+	 * @return distinct pools returned
+	 */
+	private static Set<Pool> load(final Injector injector, Method ofVirtual) throws Exception {
+		final Set<Pool> pools = Collections.newSetFromMap(new ConcurrentHashMap<Pool, Boolean>());
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		final Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					pools.add(injector.get(Pool.class));
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+			}
+		};
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < (ofVirtual != null ? VIRTUAL_THREADS : PLATFORM_THREADS); i++) {
+			final Thread thread = (ofVirtual != null ? virtualThread(ofVirtual, task) : new Thread(task));
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (!errors.isEmpty()) {
+			throw new AssertionError(errors.get(0));
+		}
+		return pools;
+	}
+
+	/**
+	 * Returns {@code Thread.ofVirtual()} or null if the JDK has no virtual threads.
+	 */
+	private static Method virtualThreadBuilder() {
+		try {
+			return Thread.class.getMethod("ofVirtual");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static Thread virtualThread(Method ofVirtual, Runnable task) throws Exception {
+		final Object builder = ofVirtual.invoke(null);
+		return (Thread) Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class).invoke(builder, task);
+	}
+
+	private static Object startPinnedRecording() throws Exception {
+		final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+		final Object recording = recordingClass.getConstructor().newInstance();
+		final Object settings = recordingClass.getMethod("enable", String.class).invoke(recording, "jdk.VirtualThreadPinned");
+		Class.forName("jdk.jfr.EventSettings").getMethod("withThreshold", Duration.class).invoke(settings, Duration.ZERO);
+		recordingClass.getMethod("start").invoke(recording);
+		return recording;
+	}
+
+	/**
+	 * Stops the recording and returns the number of recorded events.
+	 */
+	private static int stopRecording(Object recording) throws Exception {
+		final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+		final File file = File.createTempFile("fluf-pinned", ".jfr");
+		try {
+			recordingClass.getMethod("stop").invoke(recording);
+			recordingClass.getMethod("dump", Path.class).invoke(recording, file.toPath());
+			final List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+					.getMethod("readAllEvents", Path.class).invoke(null, file.toPath());
+			return events.size();
+		} finally {
+			recordingClass.getMethod("close").invoke(recording);
+			file.delete();
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package fluf;
 
 import fluf.Bind;
+import fluf.Factory;
 import fluf.Fluf;
 import fluf.dto.Bike;
 import fluf.dto.Color;
@@ -39,7 +40,9 @@ public class Application {
 		System.out.println("This is a " + this.blueBike);
 	}
 
-	// proxy factory is an interface with methods bound to some module's provider method
+	// proxy factory is an interface with methods bound to some module's provider method,
+	// @Factory lets fluf-processor generate its implementation instead of using a dynamic proxy
+	@Factory
 	public interface BikeFactory {
 		// binds to a provider by matching name return type and argument types
 		// does not require @Bind, unless you want to provide an alias like method below
@@ -1,6 +1,5 @@
 package fluf;
 
-import java.util.ArrayList;
 import java.util.Collection;
 
 import fluf.Bind;
@@ -70,11 +69,9 @@ public class MyAppModule extends Module {
 
 	@Bind
 	Storage<Bike> bikesByProvider(Provider<Bike> bikeProvider) {
-		// every call to bikeProvider.get() will produce a Bike instance (always new insatnce if Bike provider is not cached)
-		Collection<Bike> bikes = new ArrayList<Bike>();
-		for (int i = 0; i < 10; i++)
-			bikes.add(bikeProvider.get());
-		return new Storage<Bike>(bikes);
+		// getMany(10) produces 10 Bike instances like 10 calls to bikeProvider.get(), resolving
+		// dependencies shared by all instances only once (always new instances if Bike provider is not cached)
+		return new Storage<Bike>(bikeProvider.getMany(10));
 	}
 
 	StorageBuilding providesStorage(Storage<Bike> onlyBikes) { // no need to specify which Storage